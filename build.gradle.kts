@@ -6,6 +6,7 @@ plugins {
     id("io.freefair.lombok") version "9.0.0"
     id ("xyz.jpenilla.run-paper") version "2.3.1"
     id ("com.gradleup.shadow") version "9.2.0"
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "de.ztiger"
@@ -38,12 +39,26 @@ tasks {
     }
 }
 
+jmh {
+    // Run with ./gradlew jmh, results are written to build/results/jmh/results.json
+    benchmarkMode.set(listOf("thrpt"))
+    timeUnit.set("s")
+    profilers.set(listOf("gc"))
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    resultFormat.set("JSON")
+}
+
 tasks.withType<Javadoc> {
     (options as StandardJavadocDocletOptions).addStringOption("Xdoclint:none", "-quiet")
 }
 
 dependencies {
     compileOnly("io.papermc.paper:paper-api:1.21.10-R0.1-SNAPSHOT")
+
+    jmh("io.papermc.paper:paper-api:1.21.10-R0.1-SNAPSHOT")
+    jmh("org.mockbukkit.mockbukkit:mockbukkit-v1.21:4.98.0")
 }
 
 tasks.named<ProcessResources>("processResources") {
@@ -0,0 +1,69 @@
+package de.ztiger.IF.benchmark;
+
+import de.ztiger.IF.IFPlugin;
+import de.ztiger.IF.inventory.InventoryItem;
+import de.ztiger.IF.inventory.Pane;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.mockbukkit.mockbukkit.MockBukkit;
+import org.mockbukkit.mockbukkit.ServerMock;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Base state for benchmarks running against a MockBukkit server with the IF plugin loaded.
+ */
+@State(Scope.Benchmark)
+public abstract class BukkitBenchmark {
+
+    /**
+     * The mocked server.
+     */
+    protected ServerMock server;
+
+    /**
+     * The loaded plugin.
+     */
+    protected IFPlugin plugin;
+
+    /**
+     * Starts the mocked server and loads the plugin before the trial.
+     */
+    @Setup(Level.Trial)
+    public void setUpServer() {
+        server = MockBukkit.mock();
+        plugin = MockBukkit.load(IFPlugin.class);
+        setUp();
+    }
+
+    /**
+     * Stops the mocked server after the trial.
+     */
+    @TearDown(Level.Trial)
+    public void tearDownServer() {
+        MockBukkit.unmock();
+    }
+
+    /**
+     * Sets up the benchmark state once the server is running.
+     */
+    protected abstract void setUp();
+
+    /**
+     * Creates a pane filling the given number of positions with the given material.
+     *
+     * @param material Material of the items
+     * @param size     Number of positions to fill, starting at 0
+     * @return The filled {@link Pane}
+     */
+    protected static Pane filledPane(Material material, int size) {
+        Pane pane = new Pane();
+        for (int position = 0; position < size; position++) {
+            pane.addItem(position % 9, position / 9, new InventoryItem(new ItemStack(material), null));
+        }
+        return pane;
+    }
+}
@@ -0,0 +1,58 @@
+package de.ztiger.IF.benchmark;
+
+import de.ztiger.IF.inventory.ChestInventory;
+import de.ztiger.IF.inventory.InventoryItem;
+import de.ztiger.IF.inventory.InventoryListener;
+import de.ztiger.IF.inventory.Pane;
+import net.kyori.adventure.text.Component;
+import org.bukkit.Material;
+import org.bukkit.event.inventory.ClickType;
+import org.bukkit.event.inventory.InventoryAction;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.ItemStack;
+import org.mockbukkit.mockbukkit.entity.PlayerMock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Measures {@link InventoryListener#onInventoryClick(InventoryClickEvent)} through to the item handler
+ * with a growing number of stacked panes.
+ */
+public class ClickDispatchBenchmark extends BukkitBenchmark {
+
+    /**
+     * Number of full panes stacked in the inventory.
+     */
+    @Param({"1", "8", "12"})
+    public int panes;
+
+    private InventoryListener listener;
+    private InventoryClickEvent event;
+    private int clicks;
+
+    @Override
+    protected void setUp() {
+        ChestInventory gui = new ChestInventory(6, Component.text("Benchmark"));
+
+        for (int i = 0; i < panes; i++) {
+            Pane pane = new Pane();
+            for (int position = 0; position < 54; position++) {
+                pane.addItem(position % 9, position / 9, new InventoryItem(new ItemStack(Material.STONE), e -> clicks++));
+            }
+            gui.addPane(pane);
+        }
+
+        PlayerMock player = server.addPlayer();
+        gui.open(player);
+
+        listener = InventoryListener.getInstance();
+        event = new InventoryClickEvent(player.getOpenInventory(), InventoryType.SlotType.CONTAINER, 22, ClickType.LEFT, InventoryAction.PICKUP_ALL);
+    }
+
+    @Benchmark
+    public int click() {
+        listener.onInventoryClick(event);
+        return clicks;
+    }
+}
@@ -0,0 +1,48 @@
+package de.ztiger.IF.benchmark;
+
+import de.ztiger.IF.util.HeadCache;
+import de.ztiger.IF.util.ItemBuilder;
+import de.ztiger.IF.util.ItemTemplate;
+import net.kyori.adventure.text.Component;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+
+import java.util.List;
+
+/**
+ * Measures building items with {@link ItemBuilder} and the cached alternatives.
+ */
+public class ItemBuilderBenchmark extends BukkitBenchmark {
+
+    private static final String TEXTURE = "19bf3292e126a105b54eba713aa1b152d541a1d8938829c56364d178ed22bf";
+
+    private final Component name = Component.text("Benchmark Item");
+    private final List<Component> lore = List.of(Component.text("First line"), Component.text("Second line"), Component.text("Third line"));
+    private ItemTemplate template;
+
+    @Override
+    protected void setUp() {
+        template = new ItemBuilder(Material.DIAMOND).setName(name).setLore(lore).buildTemplate();
+    }
+
+    @Benchmark
+    public ItemStack build() {
+        return new ItemBuilder(Material.DIAMOND).setName(name).setLore(lore).addGlow().build();
+    }
+
+    @Benchmark
+    public ItemStack setCustomTexture() {
+        return new ItemBuilder(Material.PLAYER_HEAD).setCustomTexture(TEXTURE).setName(name).build();
+    }
+
+    @Benchmark
+    public ItemStack cachedHead() {
+        return HeadCache.get(TEXTURE, name, null);
+    }
+
+    @Benchmark
+    public ItemStack templateVariant() {
+        return template.withName(name);
+    }
+}
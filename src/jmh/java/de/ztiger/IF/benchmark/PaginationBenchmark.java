@@ -0,0 +1,43 @@
+package de.ztiger.IF.benchmark;
+
+import de.ztiger.IF.inventory.ChestInventory;
+import de.ztiger.IF.inventory.PaginatedPane;
+import net.kyori.adventure.text.Component;
+import org.bukkit.Material;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Measures page flips of a {@link PaginatedPane}, walking back and forth over its pages.
+ */
+public class PaginationBenchmark extends BukkitBenchmark {
+
+    private static final Material[] MATERIALS = {Material.STONE, Material.DIRT, Material.SAND, Material.GRAVEL};
+
+    private ChestInventory gui;
+    private PaginatedPane pane;
+    private boolean forward = true;
+
+    @Override
+    protected void setUp() {
+        gui = new ChestInventory(6, Component.text("Benchmark"));
+        pane = new PaginatedPane();
+
+        for (int page = 0; page < 10; page++) {
+            pane.addPage(filledPane(MATERIALS[page % MATERIALS.length], 45));
+        }
+
+        gui.addPane(pane);
+        gui.flush();
+    }
+
+    @Benchmark
+    public int flip() {
+        if (forward ? pane.getPage() == pane.getPageCount() - 1 : pane.getPage() == 0) forward = !forward;
+
+        if (forward) pane.nextPage();
+        else pane.previousPage();
+
+        gui.flush();
+        return pane.getPage();
+    }
+}
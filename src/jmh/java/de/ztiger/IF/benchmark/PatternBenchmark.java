@@ -0,0 +1,43 @@
+package de.ztiger.IF.benchmark;
+
+import de.ztiger.IF.data.Pattern;
+import de.ztiger.IF.inventory.InventoryItem;
+import de.ztiger.IF.inventory.Pane;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+
+import java.util.Map;
+
+/**
+ * Measures filling a pane from a bordered {@link Pattern}.
+ */
+public class PatternBenchmark extends BukkitBenchmark {
+
+    private Pattern pattern;
+    private Map<Character, InventoryItem> items;
+
+    @Override
+    protected void setUp() {
+        pattern = new Pattern(
+                "#########",
+                "#       #",
+                "#       #",
+                "#       #",
+                "#       #",
+                "###b#n###"
+        );
+        items = Map.of(
+                '#', new InventoryItem(new ItemStack(Material.GRAY_STAINED_GLASS_PANE), null),
+                'b', new InventoryItem(new ItemStack(Material.ARROW), null),
+                'n', new InventoryItem(new ItemStack(Material.SPECTRAL_ARROW), null)
+        );
+    }
+
+    @Benchmark
+    public Pane createPattern() {
+        Pane pane = new Pane();
+        pane.createPattern(items, pattern);
+        return pane;
+    }
+}
@@ -0,0 +1,40 @@
+package de.ztiger.IF.benchmark;
+
+import de.ztiger.IF.inventory.ChestInventory;
+import de.ztiger.IF.inventory.Pane;
+import net.kyori.adventure.text.Component;
+import org.bukkit.Material;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Measures {@link ChestInventory#updateByPane(Pane)} including the flush of the render buffer.
+ */
+public class RenderBenchmark extends BukkitBenchmark {
+
+    private ChestInventory gui;
+    private Pane pane;
+    private Pane overlay;
+
+    @Override
+    protected void setUp() {
+        gui = new ChestInventory(6, Component.text("Benchmark"));
+        pane = filledPane(Material.STONE, 54);
+        overlay = filledPane(Material.DIRT, 27);
+
+        gui.addPane(pane);
+        gui.addPane(overlay);
+        gui.flush();
+    }
+
+    @Benchmark
+    public void updateByPaneUnchanged() {
+        gui.updateByPane(pane);
+        gui.flush();
+    }
+
+    @Benchmark
+    public void toggleOverlay() {
+        overlay.setVisible(!overlay.isVisible());
+        gui.flush();
+    }
+}
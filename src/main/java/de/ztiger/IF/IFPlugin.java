@@ -1,7 +1,15 @@
 package de.ztiger.IF;
 
+import de.ztiger.IF.command.IFCommand;
+import de.ztiger.IF.inventory.BindingScheduler;
 import de.ztiger.IF.inventory.InventoryListener;
+import de.ztiger.IF.inventory.InventoryPool;
+import de.ztiger.IF.inventory.Navigator;
+import de.ztiger.IF.inventory.RenderPipeline;
+import de.ztiger.IF.menu.MenuRegistry;
+import de.ztiger.IF.state.GuiStateStore;
 import lombok.Getter;
+import org.bukkit.command.PluginCommand;
 import org.bukkit.plugin.java.JavaPlugin;
 
 /**
@@ -21,5 +29,24 @@ public class IFPlugin extends JavaPlugin {
     public void onEnable() {
         instance = this;
         InventoryListener.init(this);
+        BindingScheduler.init(this);
+        InventoryPool.init(this);
+        Navigator.init(this);
+        MenuRegistry.init(this);
+        GuiStateStore.init(this);
+
+        PluginCommand command = getCommand("if");
+        if (command != null) command.setExecutor(new IFCommand());
+    }
+
+    /**
+     * Called when the plugin is disabled.
+     */
+    @Override
+    public void onDisable() {
+        if (InventoryListener.getInstance() != null) InventoryListener.getInstance().shutdown();
+        if (MenuRegistry.getInstance() != null) MenuRegistry.getInstance().shutdown();
+        if (GuiStateStore.getInstance() != null) GuiStateStore.getInstance().flush();
+        RenderPipeline.shutdown();
     }
 }
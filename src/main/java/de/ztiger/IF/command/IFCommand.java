@@ -0,0 +1,171 @@
+package de.ztiger.IF.command;
+
+import de.ztiger.IF.IFPlugin;
+import de.ztiger.IF.inventory.ChestInventory;
+import de.ztiger.IF.inventory.InventoryListener;
+import de.ztiger.IF.inventory.InventoryPool;
+import de.ztiger.IF.menu.MenuRegistry;
+import de.ztiger.IF.metrics.InventoryMetrics;
+import de.ztiger.IF.metrics.InventoryStats;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabExecutor;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Handles the {@code /if} administration command.
+ */
+public class IFCommand implements TabExecutor {
+
+    @Override
+    public boolean onCommand(@NotNull CommandSender sender, @NotNull Command command, @NotNull String label, @NotNull String[] args) {
+        if (args.length == 1 && args[0].equalsIgnoreCase("reload")) {
+            reloadMenus(sender);
+            return true;
+        }
+
+        if (args.length == 0 || !args[0].equalsIgnoreCase("stats")) return false;
+
+        if (args.length == 1) {
+            sendAllStats(sender);
+            return true;
+        }
+
+        switch (args[1].toLowerCase()) {
+            case "enable" -> {
+                InventoryMetrics.setEnabled(true);
+                sender.sendMessage(Component.text("Inventory metrics enabled.", NamedTextColor.GREEN));
+            }
+            case "disable" -> {
+                InventoryMetrics.setEnabled(false);
+                sender.sendMessage(Component.text("Inventory metrics disabled.", NamedTextColor.YELLOW));
+            }
+            case "reset" -> {
+                InventoryMetrics.reset();
+                sender.sendMessage(Component.text("Inventory metrics reset.", NamedTextColor.GREEN));
+            }
+            case "show" -> {
+                if (args.length < 3) return false;
+
+                // Inventory names may contain spaces and are never confused with the subcommands
+                String name = String.join(" ", Arrays.copyOfRange(args, 2, args.length));
+                InventoryStats stats = InventoryMetrics.getStats(name);
+                if (stats == null) sender.sendMessage(Component.text("No metrics recorded for '" + name + "'.", NamedTextColor.RED));
+                else sendStats(sender, stats, true);
+            }
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public List<String> onTabComplete(@NotNull CommandSender sender, @NotNull Command command, @NotNull String label, @NotNull String[] args) {
+        List<String> completions = new ArrayList<>();
+
+        if (args.length == 1) {
+            completions.add("stats");
+            completions.add("reload");
+        } else if (args.length == 2 && args[0].equalsIgnoreCase("stats")) {
+            completions.add("enable");
+            completions.add("disable");
+            completions.add("reset");
+            completions.add("show");
+        } else if (args.length == 3 && args[0].equalsIgnoreCase("stats") && args[1].equalsIgnoreCase("show")) {
+            for (InventoryStats stats : InventoryMetrics.getAllStats()) completions.add(stats.getName());
+        }
+
+        String prefix = args[args.length - 1].toLowerCase();
+        completions.removeIf(completion -> !completion.toLowerCase().startsWith(prefix));
+        return completions;
+    }
+
+    /**
+     * Recompiles all menu files off the main thread.
+     *
+     * @param sender The sender to notify when done
+     */
+    private void reloadMenus(CommandSender sender) {
+        MenuRegistry registry = MenuRegistry.getInstance();
+        if (registry == null) {
+            sender.sendMessage(Component.text("Menus are not available.", NamedTextColor.RED));
+            return;
+        }
+
+        IFPlugin plugin = IFPlugin.getInstance();
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            registry.reloadAll();
+            sender.sendMessage(Component.text("Reloaded " + registry.getMenus().size() + " menus.", NamedTextColor.GREEN));
+        });
+    }
+
+    /**
+     * Sends a summary line for every named inventory.
+     *
+     * @param sender The receiver of the summary
+     */
+    private void sendAllStats(CommandSender sender) {
+        sender.sendMessage(Component.text("Inventory metrics are " + (InventoryMetrics.isEnabled() ? "enabled" : "disabled")
+                + " (budget " + formatMillis(InventoryMetrics.getBudgetNanos()) + ")", NamedTextColor.GOLD));
+        sender.sendMessage(Component.text("Open GUIs: " + (InventoryListener.getInstance() == null ? 0 : InventoryListener.getInstance().getOpenCount())
+                + ", live GUIs: " + ChestInventory.getLiveCount(), NamedTextColor.GRAY));
+        InventoryPool pool = InventoryPool.getInstance();
+        if (pool != null) {
+            sender.sendMessage(Component.text("Pooled GUIs: " + pool.getIdleCount() + " idle, "
+                    + pool.getCreated() + " created, " + pool.getReused() + " reused", NamedTextColor.GRAY));
+        }
+
+        if (InventoryMetrics.getAllStats().isEmpty()) {
+            sender.sendMessage(Component.text("No metrics recorded.", NamedTextColor.GRAY));
+            return;
+        }
+
+        for (InventoryStats stats : InventoryMetrics.getAllStats()) sendStats(sender, stats, false);
+    }
+
+    /**
+     * Sends the statistics of one inventory name.
+     *
+     * @param sender   The receiver of the statistics
+     * @param stats    The {@link InventoryStats} to send
+     * @param detailed Whether to include the percentiles and the last slow handler
+     */
+    private void sendStats(CommandSender sender, InventoryStats stats, boolean detailed) {
+        long renders = stats.getRenders();
+        sender.sendMessage(Component.text(stats.getName() + ": ", NamedTextColor.YELLOW)
+                .append(Component.text("clicks " + stats.getClicks()
+                        + ", p99 " + formatMillis(stats.getHandlerLatency().getPercentile(0.99))
+                        + ", slow " + stats.getSlowHandlers()
+                        + ", setItem " + stats.getSetItems()
+                        + ", avg render " + formatMillis(renders == 0 ? 0 : stats.getRenderNanos() / renders), NamedTextColor.GRAY)));
+
+        if (!detailed) return;
+
+        sender.sendMessage(Component.text("  handler latency p50 " + formatMillis(stats.getHandlerLatency().getPercentile(0.5))
+                + ", p90 " + formatMillis(stats.getHandlerLatency().getPercentile(0.9))
+                + ", max " + formatMillis(stats.getHandlerLatency().getMax()), NamedTextColor.GRAY));
+
+        InventoryStats.SlowHandler slow = stats.getLastSlowHandler();
+        if (slow != null) {
+            sender.sendMessage(Component.text("  last slow " + slow.handler() + " handler: slot " + slow.slot()
+                    + ", pane " + (slow.pane() == null ? "-" : slow.pane()) + ", " + formatMillis(slow.nanos()), NamedTextColor.RED));
+        }
+    }
+
+    /**
+     * Formats nanoseconds as milliseconds.
+     *
+     * @param nanos The duration in nanoseconds
+     * @return The formatted duration
+     */
+    private static String formatMillis(long nanos) {
+        return String.format("%.2f ms", nanos / 1_000_000.0);
+    }
+}
@@ -0,0 +1,312 @@
+package de.ztiger.IF.data;
+
+import lombok.Getter;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sorted list with order statistics: inserting, removing, finding the rank of an entry and getting the entry at
+ * a rank all take O(log n). Every link of the skip list stores how many entries it skips, so ranks are counted
+ * while searching. Entries comparing equal keep their insertion order.
+ * <p>
+ * Entries are tracked by identity and must not change their sort key while in the list, use
+ * {@link #remove(Object)} and {@link #add(Object)} around a change. Not thread-safe.
+ *
+ * @param <T> Type of the entries
+ */
+public final class IndexedSkipList<T> {
+
+    /**
+     * Maximum number of levels.
+     */
+    private static final int MAX_LEVEL = 32;
+
+    /**
+     * Order of the entries.
+     */
+    @Getter
+    private Comparator<? super T> comparator;
+
+    /**
+     * Insertion sequence of every entry, breaking ties between entries comparing equal.
+     */
+    private final Map<T, Long> sequences = new IdentityHashMap<>();
+
+    /**
+     * Sentinel node before the first entry.
+     */
+    private final Node<T> head = new Node<>(null, 0, MAX_LEVEL);
+
+    /**
+     * Number of levels in use.
+     */
+    private int level = 1;
+
+    /**
+     * Next insertion sequence.
+     */
+    private long nextSequence;
+
+    /**
+     * Creates an empty list.
+     *
+     * @param comparator The order of the entries
+     */
+    public IndexedSkipList(Comparator<? super T> comparator) {
+        this.comparator = comparator;
+    }
+
+    /**
+     * Gets the number of entries.
+     *
+     * @return The size of the list
+     */
+    public int size() {
+        return sequences.size();
+    }
+
+    /**
+     * Checks whether the entry is in the list.
+     *
+     * @param entry The entry
+     * @return True if the entry was added and not removed
+     */
+    public boolean contains(T entry) {
+        return sequences.containsKey(entry);
+    }
+
+    /**
+     * Inserts an entry at its sorted position.
+     *
+     * @param entry The entry to insert
+     * @return The rank (0-indexed) of the inserted entry
+     * @throws IllegalArgumentException If the entry is already in the list
+     */
+    @SuppressWarnings("unchecked")
+    public int add(T entry) {
+        if (sequences.containsKey(entry)) {
+            throw new IllegalArgumentException("Entry is already in the list");
+        }
+
+        long sequence = nextSequence++;
+        sequences.put(entry, sequence);
+
+        Node<T>[] update = new Node[MAX_LEVEL];
+        int[] rank = new int[MAX_LEVEL];
+        Node<T> x = head;
+
+        for (int i = level - 1; i >= 0; i--) {
+            rank[i] = i == level - 1 ? 0 : rank[i + 1];
+            while (x.next[i] != null && compare(x.next[i], entry, sequence) < 0) {
+                rank[i] += x.span[i];
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+
+        int nodeLevel = randomLevel();
+        if (nodeLevel > level) {
+            for (int i = level; i < nodeLevel; i++) {
+                rank[i] = 0;
+                update[i] = head;
+                head.span[i] = size() - 1;
+            }
+            level = nodeLevel;
+        }
+
+        Node<T> node = new Node<>(entry, sequence, nodeLevel);
+        for (int i = 0; i < nodeLevel; i++) {
+            node.next[i] = update[i].next[i];
+            update[i].next[i] = node;
+
+            node.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+            update[i].span[i] = (rank[0] - rank[i]) + 1;
+        }
+
+        for (int i = nodeLevel; i < level; i++) {
+            update[i].span[i]++;
+        }
+
+        return rank[0];
+    }
+
+    /**
+     * Removes an entry.
+     *
+     * @param entry The entry to remove
+     * @return The rank (0-indexed) the entry had, or -1 if it was not in the list
+     */
+    @SuppressWarnings("unchecked")
+    public int remove(T entry) {
+        Long sequence = sequences.remove(entry);
+        if (sequence == null) return -1;
+
+        Node<T>[] update = new Node[MAX_LEVEL];
+        int rank = 0;
+        Node<T> x = head;
+
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && compare(x.next[i], entry, sequence) < 0) {
+                rank += x.span[i];
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+
+        Node<T> node = x.next[0];
+        for (int i = 0; i < level; i++) {
+            if (update[i].next[i] == node) {
+                update[i].span[i] += node.span[i] - 1;
+                update[i].next[i] = node.next[i];
+            } else {
+                update[i].span[i]--;
+            }
+        }
+
+        while (level > 1 && head.next[level - 1] == null) level--;
+
+        return rank;
+    }
+
+    /**
+     * Gets the rank of an entry.
+     *
+     * @param entry The entry
+     * @return The rank (0-indexed), or -1 if the entry is not in the list
+     */
+    public int indexOf(T entry) {
+        Long sequence = sequences.get(entry);
+        if (sequence == null) return -1;
+
+        int rank = 0;
+        Node<T> x = head;
+
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && compare(x.next[i], entry, sequence) <= 0) {
+                rank += x.span[i];
+                x = x.next[i];
+            }
+            if (x.value == entry) return rank - 1;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Gets the entry at a rank.
+     *
+     * @param rank The rank (0-indexed)
+     * @return The entry, or null if the rank is out of range
+     */
+    @Nullable
+    public T get(int rank) {
+        if (rank < 0 || rank >= size()) return null;
+
+        int target = rank + 1;
+        int traversed = 0;
+        Node<T> x = head;
+
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && traversed + x.span[i] <= target) {
+                traversed += x.span[i];
+                x = x.next[i];
+            }
+            if (traversed == target) return x.value;
+        }
+
+        return null;
+    }
+
+    /**
+     * Gets the entries in a rank range.
+     *
+     * @param from First rank (0-indexed, inclusive)
+     * @param to   Last rank (exclusive)
+     * @return The entries in order
+     */
+    public List<T> subList(int from, int to) {
+        from = Math.max(0, from);
+        to = Math.min(size(), to);
+
+        List<T> entries = new ArrayList<>(Math.max(0, to - from));
+        for (int rank = from; rank < to; rank++) entries.add(get(rank));
+        return entries;
+    }
+
+    /**
+     * Changes the order of the entries and re-sorts them. Entries comparing equal keep their previous order.
+     *
+     * @param comparator The new order
+     */
+    public void setComparator(Comparator<? super T> comparator) {
+        List<T> entries = subList(0, size());
+
+        this.comparator = comparator;
+        clear();
+        for (T entry : entries) add(entry);
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public void clear() {
+        sequences.clear();
+        for (int i = 0; i < MAX_LEVEL; i++) {
+            head.next[i] = null;
+            head.span[i] = 0;
+        }
+        level = 1;
+    }
+
+    /**
+     * Compares a node with an entry, breaking ties by insertion sequence.
+     *
+     * @param node     The node
+     * @param entry    The entry
+     * @param sequence The insertion sequence of the entry
+     * @return Negative, zero or positive if the node sorts before, at or after the entry
+     */
+    private int compare(Node<T> node, T entry, long sequence) {
+        int result = comparator.compare(node.value, entry);
+        return result != 0 ? result : Long.compare(node.sequence, sequence);
+    }
+
+    /**
+     * Draws the level of a new node, each further level with a probability of 1/4.
+     *
+     * @return The level
+     */
+    private static int randomLevel() {
+        int level = 1;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (level < MAX_LEVEL && (random.nextInt() & 3) == 0) level++;
+        return level;
+    }
+
+    /**
+     * A node of the skip list.
+     *
+     * @param <T> Type of the entries
+     */
+    private static final class Node<T> {
+
+        private final T value;
+        private final long sequence;
+        private final Node<T>[] next;
+        private final int[] span;
+
+        @SuppressWarnings("unchecked")
+        private Node(T value, long sequence, int level) {
+            this.value = value;
+            this.sequence = sequence;
+            this.next = new Node[level];
+            this.span = new int[level];
+        }
+    }
+}
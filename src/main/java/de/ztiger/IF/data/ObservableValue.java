@@ -0,0 +1,55 @@
+package de.ztiger.IF.data;
+
+import lombok.Getter;
+
+import java.util.Objects;
+
+/**
+ * A value that tracks when it changes. Can be set from any thread.
+ * Slots bound to it are only re-rendered when its version moved.
+ *
+ * @param <T> Type of the value
+ */
+public class ObservableValue<T> {
+
+    /**
+     * The current value.
+     */
+    private volatile T value;
+
+    /**
+     * Version of the value, incremented on every change.
+     */
+    @Getter
+    private volatile long version;
+
+    /**
+     * Creates an observable value with the given initial value.
+     *
+     * @param value The initial value
+     */
+    public ObservableValue(T value) {
+        this.value = value;
+    }
+
+    /**
+     * Gets the current value.
+     *
+     * @return The current value
+     */
+    public T get() {
+        return value;
+    }
+
+    /**
+     * Sets the value. The version only changes if the new value differs from the current one.
+     *
+     * @param value The new value
+     */
+    public synchronized void set(T value) {
+        if (Objects.equals(this.value, value)) return;
+
+        this.value = value;
+        this.version++;
+    }
+}
@@ -1,17 +1,56 @@
 package de.ztiger.IF.data;
 
-import lombok.Getter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Represents a pattern for inventory layouts.
+ * The pattern is compiled once into a bitset of positions per character, so panes can be filled
+ * from it in a single pass. Patterns are immutable and can be shared, see {@link #of(String...)}.
  */
 public class Pattern {
 
     /**
-     * The pattern represented as a 2D array of integers.
+     * Maximum number of rows of a pattern.
      */
-    @Getter
-    protected int[][] pattern;
+    public static final int MAX_ROWS = 6;
+
+    /**
+     * Maximum number of slots in a pattern row.
+     */
+    public static final int ROW_WIDTH = 9;
+
+    /**
+     * Maximum number of compiled patterns kept for sharing.
+     */
+    public static final int MAX_CACHED_PATTERNS = 256;
+
+    /**
+     * Compiled patterns shared through {@link #of(String...)}, at most {@link #MAX_CACHED_PATTERNS}.
+     */
+    private static final Map<List<String>, Pattern> cache = new ConcurrentHashMap<>();
+
+    /**
+     * The pattern represented as a 2D array of integers. Never handed out, see {@link #getPattern()}.
+     */
+    protected final int[][] pattern;
+
+    /**
+     * Character at every position (slot + row * 9), 0 for positions the pattern does not cover.
+     */
+    private final char[] positions;
+
+    /**
+     * Distinct characters used in the pattern.
+     */
+    private final char[] keys;
+
+    /**
+     * Bitset of the positions of each character in {@link #keys}.
+     */
+    private final long[] masks;
 
     /**
      * Creates a pattern from the given string array. Each string represents a row in the pattern,
@@ -19,14 +58,129 @@ public class Pattern {
      * is stored in the pattern array.
      *
      * @param pattern Array of strings representing the pattern
+     * @throws IllegalArgumentException If the pattern has more than 6 rows or a row is wider than 9
      */
     public Pattern(String... pattern) {
-        this.pattern = new int[pattern.length][9];
+        if (pattern.length > MAX_ROWS) {
+            throw new IllegalArgumentException("Pattern has " + pattern.length + " rows, at most " + MAX_ROWS + " are allowed");
+        }
+
+        this.pattern = new int[pattern.length][ROW_WIDTH];
+        this.positions = new char[pattern.length * ROW_WIDTH];
+        char[] foundKeys = new char[positions.length];
+        long[] foundMasks = new long[positions.length];
+        int keyCount = 0;
+
         for (int row = 0; row < pattern.length; row++) {
             String line = pattern[row];
+            if (line.length() > ROW_WIDTH) {
+                throw new IllegalArgumentException("Pattern row " + row + " is " + line.length() + " wide, at most " + ROW_WIDTH + " are allowed");
+            }
+
             for (int slot = 0; slot < line.length(); slot++) {
-                this.pattern[row][slot] = line.charAt(slot);
+                char key = line.charAt(slot);
+                int position = slot + (row * ROW_WIDTH);
+                this.pattern[row][slot] = key;
+                this.positions[position] = key;
+
+                int index = 0;
+                while (index < keyCount && foundKeys[index] != key) index++;
+                if (index == keyCount) foundKeys[keyCount++] = key;
+                foundMasks[index] |= 1L << position;
             }
         }
+
+        this.keys = Arrays.copyOf(foundKeys, keyCount);
+        this.masks = Arrays.copyOf(foundMasks, keyCount);
+    }
+
+    /**
+     * Gets a compiled pattern for the given rows, reusing a cached instance if the same rows were compiled before.
+     * Once {@link #MAX_CACHED_PATTERNS} patterns are cached, further rows are compiled without being cached.
+     *
+     * @param pattern Array of strings representing the pattern
+     * @return The shared {@link Pattern}
+     * @throws IllegalArgumentException If the pattern has more than 6 rows or a row is wider than 9
+     */
+    public static Pattern of(String... pattern) {
+        List<String> rows = List.of(pattern);
+        Pattern cached = cache.get(rows);
+        if (cached != null) return cached;
+        if (cache.size() >= MAX_CACHED_PATTERNS) return new Pattern(pattern);
+
+        return cache.computeIfAbsent(rows, key -> new Pattern(pattern));
+    }
+
+    /**
+     * Gets the pattern as a 2D array of character values, by row and slot.
+     *
+     * @return A copy of the pattern array
+     */
+    public int[][] getPattern() {
+        int[][] copy = new int[pattern.length][];
+        for (int row = 0; row < pattern.length; row++) copy[row] = pattern[row].clone();
+        return copy;
+    }
+
+    /**
+     * Gets the number of rows of the pattern.
+     *
+     * @return The number of rows
+     */
+    public int getRows() {
+        return pattern.length;
+    }
+
+    /**
+     * Gets the character at the given position.
+     *
+     * @param position Position in the pattern (slot + row * 9)
+     * @return The character, or 0 if the pattern does not cover the position
+     */
+    public char charAt(int position) {
+        if (position < 0 || position >= positions.length) return 0;
+        return positions[position];
+    }
+
+    /**
+     * Gets the number of distinct characters in the pattern.
+     *
+     * @return The number of keys
+     */
+    public int getKeyCount() {
+        return keys.length;
+    }
+
+    /**
+     * Gets a distinct character of the pattern.
+     *
+     * @param index Index of the key, below {@link #getKeyCount()}
+     * @return The character
+     */
+    public char getKey(int index) {
+        return keys[index];
+    }
+
+    /**
+     * Gets the positions of a distinct character of the pattern.
+     *
+     * @param index Index of the key, below {@link #getKeyCount()}
+     * @return Bitset of the positions, bit {@code n} standing for position {@code n}
+     */
+    public long getKeyMask(int index) {
+        return masks[index];
+    }
+
+    /**
+     * Gets the positions of the given character.
+     *
+     * @param key The character to look up
+     * @return Bitset of the positions, 0 if the character is not used
+     */
+    public long getMask(char key) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == key) return masks[i];
+        }
+        return 0;
     }
 }
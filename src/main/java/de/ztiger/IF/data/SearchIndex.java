@@ -0,0 +1,303 @@
+package de.ztiger.IF.data;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Immutable search index over a fixed list of entries, addressed by their index in the list (the entry id).
+ * <p>
+ * Names are matched by prefix: a query matches if it occurs in the normalized name at the start of a word,
+ * so extending a query can only narrow its result. Queries of three or more characters are answered from a
+ * trigram index, shorter ones by binary search over the sorted words. Tags are kept as one {@link BitSet}
+ * per tag, so filters are combined with bitwise operations. Safe to read from any thread.
+ *
+ * @param <T> Type of the entries
+ */
+public final class SearchIndex<T> {
+
+    /**
+     * Length of the indexed n-grams.
+     */
+    private static final int GRAM = 3;
+
+    /**
+     * The indexed entries, by id.
+     */
+    private final List<T> entries;
+
+    /**
+     * Normalized name of every entry, by id.
+     */
+    private final String[] names;
+
+    /**
+     * Sorted ids of the entries whose name contains a trigram, by packed trigram.
+     */
+    private final Map<Long, int[]> trigrams;
+
+    /**
+     * Every word of every name, sorted.
+     */
+    private final String[] words;
+
+    /**
+     * Entry id of every word in {@link #words}.
+     */
+    private final int[] wordIds;
+
+    /**
+     * Entries carrying a tag, by tag.
+     */
+    private final Map<String, BitSet> tags;
+
+    /**
+     * Builds the index.
+     *
+     * @param entries Entries to index, a copy is taken
+     * @param name    Function returning the searchable name of an entry, for example its plain display name
+     * @param tags    Function returning the tags of an entry, for example its categories
+     */
+    public SearchIndex(List<T> entries, Function<T, String> name, Function<T, Collection<String>> tags) {
+        this.entries = List.copyOf(entries);
+        this.names = new String[this.entries.size()];
+        this.tags = new HashMap<>();
+
+        Map<Long, Postings> grams = new HashMap<>();
+        List<String> wordList = new ArrayList<>();
+        List<Integer> wordIdList = new ArrayList<>();
+
+        for (int id = 0; id < names.length; id++) {
+            T entry = this.entries.get(id);
+            String normalized = normalize(name.apply(entry));
+            names[id] = normalized;
+
+            for (int i = 0; i + GRAM <= normalized.length(); i++) {
+                grams.computeIfAbsent(pack(normalized, i), k -> new Postings()).add(id);
+            }
+
+            for (String word : normalized.split("[^\\p{L}\\p{N}]+")) {
+                if (word.isEmpty()) continue;
+                wordList.add(word);
+                wordIdList.add(id);
+            }
+
+            for (String tag : tags.apply(entry)) {
+                this.tags.computeIfAbsent(tag, t -> new BitSet(names.length)).set(id);
+            }
+        }
+
+        this.trigrams = new HashMap<>(grams.size() * 4 / 3 + 1);
+        grams.forEach((gram, postings) -> trigrams.put(gram, postings.toArray()));
+
+        Integer[] order = new Integer[wordList.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> wordList.get(a).compareTo(wordList.get(b)));
+
+        this.words = new String[order.length];
+        this.wordIds = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            words[i] = wordList.get(order[i]);
+            wordIds[i] = wordIdList.get(order[i]);
+        }
+    }
+
+    /**
+     * Normalizes a name or query for matching: lower case with collapsed whitespace.
+     *
+     * @param text The text to normalize
+     * @return The normalized text
+     */
+    public static String normalize(String text) {
+        return text.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Gets the number of indexed entries.
+     *
+     * @return The number of entries
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets an entry by id.
+     *
+     * @param id The entry id
+     * @return The entry
+     */
+    public T get(int id) {
+        return entries.get(id);
+    }
+
+    /**
+     * Gets every known tag.
+     *
+     * @return Unmodifiable set of tags
+     */
+    public Set<String> getTags() {
+        return Collections.unmodifiableSet(tags.keySet());
+    }
+
+    /**
+     * Gets the ids of every entry.
+     *
+     * @return A new {@link BitSet} with every id set
+     */
+    public BitSet all() {
+        BitSet ids = new BitSet(entries.size());
+        ids.set(0, entries.size());
+        return ids;
+    }
+
+    /**
+     * Removes every id not carrying the given tag.
+     *
+     * @param ids The {@link BitSet} of ids to narrow, modified in place
+     * @param tag The required tag
+     * @return The given bitset
+     */
+    public BitSet filter(BitSet ids, String tag) {
+        BitSet tagged = tags.get(tag);
+        if (tagged == null) ids.clear();
+        else ids.and(tagged);
+        return ids;
+    }
+
+    /**
+     * Finds the entries whose name matches the query.
+     *
+     * @param query  The query, matched at word starts
+     * @param within Ids to search in, for example the result of a shorter query, or null to search every entry
+     * @return A new {@link BitSet} of the matching ids
+     */
+    public BitSet search(String query, @Nullable BitSet within) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty()) return within == null ? all() : (BitSet) within.clone();
+
+        // Narrowing a small previous result is cheaper than asking the index
+        if (within != null && within.cardinality() <= 256) {
+            BitSet result = new BitSet(entries.size());
+            for (int id = within.nextSetBit(0); id >= 0; id = within.nextSetBit(id + 1)) {
+                if (matches(names[id], normalized)) result.set(id);
+            }
+            return result;
+        }
+
+        BitSet result = normalized.length() >= GRAM ? searchTrigrams(normalized) : searchWords(normalized);
+        if (within != null) result.and(within);
+        return result;
+    }
+
+    /**
+     * Answers a query of at least three characters from the trigram index.
+     * Candidates are taken from the rarest trigram of the query and verified against the names.
+     *
+     * @param query The normalized query
+     * @return The matching ids
+     */
+    private BitSet searchTrigrams(String query) {
+        int[] rarest = null;
+        for (int i = 0; i + GRAM <= query.length(); i++) {
+            int[] postings = trigrams.get(pack(query, i));
+            if (postings == null) return new BitSet();
+            if (rarest == null || postings.length < rarest.length) rarest = postings;
+        }
+
+        BitSet result = new BitSet(entries.size());
+        for (int id : rarest) {
+            if (matches(names[id], query)) result.set(id);
+        }
+        return result;
+    }
+
+    /**
+     * Answers a query of one or two characters by binary search over the sorted words.
+     * Words only consist of letters and digits, so a query with any other character is matched against the full names.
+     *
+     * @param query The normalized query
+     * @return The matching ids
+     */
+    private BitSet searchWords(String query) {
+        BitSet result = new BitSet(entries.size());
+
+        if (!query.chars().allMatch(Character::isLetterOrDigit)) {
+            for (int id = 0; id < names.length; id++) {
+                if (matches(names[id], query)) result.set(id);
+            }
+            return result;
+        }
+
+        int index = Arrays.binarySearch(words, query);
+        if (index < 0) index = -index - 1;
+
+        for (; index < words.length && words[index].startsWith(query); index++) {
+            result.set(wordIds[index]);
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether the query occurs in the name at the start of a word.
+     *
+     * @param name  The normalized name
+     * @param query The normalized query
+     * @return True if the name matches
+     */
+    private static boolean matches(String name, String query) {
+        for (int index = name.indexOf(query); index >= 0; index = name.indexOf(query, index + 1)) {
+            if (index == 0 || !Character.isLetterOrDigit(name.charAt(index - 1))) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Packs the trigram at the given index into a single key.
+     *
+     * @param text  The text
+     * @param index Start of the trigram
+     * @return The packed trigram
+     */
+    private static long pack(String text, int index) {
+        return ((long) text.charAt(index) << 32) | ((long) text.charAt(index + 1) << 16) | text.charAt(index + 2);
+    }
+
+    /**
+     * Growable sorted list of entry ids, used while building the index.
+     */
+    private static final class Postings {
+
+        private int[] ids = new int[4];
+        private int size;
+
+        /**
+         * Adds an id, ignoring it if it was the last one added.
+         *
+         * @param id The entry id, not lower than the previous one
+         */
+        void add(int id) {
+            if (size > 0 && ids[size - 1] == id) return;
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+        }
+
+        /**
+         * Gets the ids as a trimmed array.
+         *
+         * @return The sorted ids
+         */
+        int[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package de.ztiger.IF.inventory;
+
+import org.bukkit.event.inventory.ClickType;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+
+import javax.annotation.Nullable;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * An inventory item whose click handler runs off the main thread on a virtual thread.
+ * The click event is cancelled and the slot (or the whole inventory) is locked while the handler runs.
+ * The returned {@link Result} is applied on the main thread afterwards, unless the player closed the
+ * inventory in the meantime, in which case the handler is interrupted and its result discarded.
+ */
+public class AsyncInventoryItem extends InventoryItem {
+
+    /**
+     * Executor running the async handlers, one virtual thread per click.
+     */
+    static final ExecutorService EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * The handler run off the main thread.
+     */
+    protected final Handler handler;
+
+    /**
+     * What is locked while the handler runs.
+     */
+    protected final Lock lock;
+
+    /**
+     * Creates an async item locking its slot while the handler runs.
+     *
+     * @param item    The {@link ItemStack} representing the item
+     * @param handler The {@link Handler} run off the main thread
+     */
+    public AsyncInventoryItem(@NotNull ItemStack item, Handler handler) {
+        this(item, handler, Lock.SLOT);
+    }
+
+    /**
+     * Creates an async item.
+     *
+     * @param item    The {@link ItemStack} representing the item
+     * @param handler The {@link Handler} run off the main thread
+     * @param lock    What to lock while the handler runs
+     */
+    public AsyncInventoryItem(@NotNull ItemStack item, Handler handler, Lock lock) {
+        super(item, null);
+        this.handler = handler;
+        this.lock = lock;
+    }
+
+    /**
+     * Cancels the event and submits the handler, unless the slot is already locked.
+     *
+     * @param event The {@link InventoryClickEvent} that triggered the click
+     */
+    @Override
+    public void callOnClick(InventoryClickEvent event) {
+        event.setCancelled(true);
+
+        if (event.getInventory().getHolder() instanceof ChestInventory chestInventory) {
+            chestInventory.submitAsyncClick(event, this);
+        }
+    }
+
+    /**
+     * What a pending async click locks against further clicks.
+     */
+    public enum Lock {
+        /**
+         * Only the clicked slot.
+         */
+        SLOT,
+        /**
+         * Every slot of the inventory, including the player's own inventory below it.
+         */
+        INVENTORY
+    }
+
+    /**
+     * Snapshot of a click handed to the async handler, safe to use from any thread.
+     *
+     * @param playerId  The {@link UUID} of the clicking player
+     * @param slot      The clicked slot
+     * @param clickType The {@link ClickType} of the click
+     */
+    public record Click(UUID playerId, int slot, ClickType clickType) {
+    }
+
+    @Override
+    InventoryItem withStack(@NotNull ItemStack item) {
+        return new AsyncInventoryItem(item, handler, lock);
+    }
+
+    /**
+     * What was clicked, captured on the main thread when the click was submitted.
+     *
+     * @param slot The clicked slot
+     * @param pane The topmost visible {@link Pane} covering the slot at click time, or null
+     * @param item The clicked {@link InventoryItem}
+     */
+    public record Target(int slot, @Nullable Pane pane, InventoryItem item) {
+    }
+
+    /**
+     * A click handler run off the main thread. It must not touch the Bukkit API.
+     */
+    @FunctionalInterface
+    public interface Handler {
+
+        /**
+         * Handles the click.
+         *
+         * @param click The {@link Click} snapshot
+         * @return The {@link Result} to apply on the main thread
+         * @throws Exception If the handler failed, the failure is logged and nothing is applied
+         */
+        Result handle(Click click) throws Exception;
+    }
+
+    /**
+     * Changes applied to the inventory on the main thread once an async handler finished.
+     */
+    @FunctionalInterface
+    public interface Result {
+
+        /**
+         * Applies the changes.
+         *
+         * @param chestInventory The {@link ChestInventory} the click happened in
+         * @param target         The {@link Target} captured when the click happened
+         */
+        void apply(ChestInventory chestInventory, Target target);
+
+        /**
+         * A result that changes nothing.
+         *
+         * @return The result
+         */
+        static Result none() {
+            return (chestInventory, target) -> {
+            };
+        }
+
+        /**
+         * A result showing a new stack in place of the clicked item. A new item is placed into the pane that held
+         * the clicked one, or into the current page of a paginated pane, so an item shared with other inventories
+         * is never changed. Skipped if the slot no longer shows the clicked item, for example because the page
+         * changed while the handler ran, or if the pane renders its items itself, like a {@link ScrollingPane}.
+         *
+         * @param itemStack The new {@link ItemStack}
+         * @return The result
+         */
+        static Result item(ItemStack itemStack) {
+            return (chestInventory, target) -> {
+                if (chestInventory.getSlotItem(target.slot()) != target.item()) return;
+
+                Pane holder = target.pane();
+                while (holder instanceof PagedPane pagedPane) holder = pagedPane.getCurrentPane();
+                if (holder == null || holder.inventoryItems[target.slot()] != target.item()) return;
+
+                holder.replaceItem(target.slot(), target.item().withStack(itemStack));
+            };
+        }
+
+        /**
+         * A result running arbitrary changes, such as swapping or updating panes.
+         *
+         * @param changes The changes to run on the main thread
+         * @return The result
+         */
+        static Result apply(Consumer<ChestInventory> changes) {
+            return (chestInventory, target) -> changes.accept(chestInventory);
+        }
+    }
+}
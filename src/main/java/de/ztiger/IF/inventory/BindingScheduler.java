@@ -0,0 +1,72 @@
+package de.ztiger.IF.inventory;
+
+import lombok.Getter;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Framework-owned scheduler evaluating the {@link BoundInventoryItem}s of every viewed {@link ChestInventory}
+ * once per tick. Inventories without viewers are not tracked and cost nothing.
+ */
+public class BindingScheduler implements Runnable {
+
+    /**
+     * Singleton instance of the BindingScheduler.
+     */
+    @Getter
+    private static volatile BindingScheduler instance;
+
+    /**
+     * Inventories with at least one viewer. Only accessed on the main thread.
+     */
+    private final Set<ChestInventory> active = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Number of ticks since the scheduler started.
+     */
+    @Getter
+    private long tick;
+
+    /**
+     * Initializes the BindingScheduler and starts it on the given plugin's scheduler.
+     *
+     * @param plugin The {@link Plugin} owning the task
+     */
+    public static void init(Plugin plugin) {
+        instance = new BindingScheduler();
+        plugin.getServer().getScheduler().runTaskTimer(plugin, instance, 1L, 1L);
+    }
+
+    /**
+     * Starts evaluating the bindings of the given inventory.
+     *
+     * @param gui The {@link ChestInventory} that gained its first viewer
+     */
+    void track(ChestInventory gui) {
+        active.add(gui);
+    }
+
+    /**
+     * Stops evaluating the bindings of the given inventory.
+     *
+     * @param gui The {@link ChestInventory} that lost its last viewer
+     */
+    void untrack(ChestInventory gui) {
+        active.remove(gui);
+    }
+
+    /**
+     * Evaluates the due bindings of every viewed inventory.
+     */
+    @Override
+    public void run() {
+        tick++;
+
+        for (ChestInventory gui : active) {
+            gui.pollBindings(tick);
+        }
+    }
+}
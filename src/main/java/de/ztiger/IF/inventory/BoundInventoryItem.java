@@ -0,0 +1,115 @@
+package de.ztiger.IF.inventory;
+
+import de.ztiger.IF.data.ObservableValue;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.inventory.ItemStack;
+
+import javax.annotation.Nullable;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * An inventory item whose {@link ItemStack} is re-evaluated by the {@link BindingScheduler}.
+ * The slot is only re-rendered when the evaluated stack differs from the current one.
+ */
+public class BoundInventoryItem extends InventoryItem {
+
+    /**
+     * Supplier of the current stack. Always called on the main thread.
+     */
+    protected final Supplier<ItemStack> supplier;
+
+    /**
+     * Minimum number of ticks between two evaluations.
+     */
+    protected final long interval;
+
+    /**
+     * Version source, the supplier is only evaluated when it changed. Null to evaluate on every interval.
+     */
+    @Nullable
+    protected final LongSupplier version;
+
+    /**
+     * Tick from which on the item is evaluated again.
+     */
+    private long nextPoll;
+
+    /**
+     * Version seen during the last evaluation.
+     */
+    private long lastVersion;
+
+    /**
+     * Tick of the last evaluation that changed the stack.
+     */
+    private long changedAt = -1;
+
+    /**
+     * Creates an item evaluating the supplier every given number of ticks.
+     *
+     * @param supplier Supplier of the current {@link ItemStack}
+     * @param interval Number of ticks between evaluations (at least 1)
+     * @param onClick  Consumer handling click events on this item, or null
+     */
+    public BoundInventoryItem(Supplier<ItemStack> supplier, long interval, @Nullable Consumer<InventoryClickEvent> onClick) {
+        this(supplier, interval, null, onClick);
+    }
+
+    /**
+     * Creates an item evaluating the supplier whenever the version changes.
+     *
+     * @param supplier Supplier of the current {@link ItemStack}
+     * @param interval Number of ticks between version checks (at least 1)
+     * @param version  Version source, or null to evaluate on every interval
+     * @param onClick  Consumer handling click events on this item, or null
+     */
+    protected BoundInventoryItem(Supplier<ItemStack> supplier, long interval, @Nullable LongSupplier version, @Nullable Consumer<InventoryClickEvent> onClick) {
+        super(supplier.get(), onClick);
+        this.supplier = supplier;
+        this.interval = Math.max(1, interval);
+        this.version = version;
+        if (version != null) this.lastVersion = version.getAsLong();
+    }
+
+    /**
+     * Creates an item rendering the observable value every time it changes.
+     *
+     * @param value    The {@link ObservableValue} to observe
+     * @param renderer Function rendering the value into an {@link ItemStack}
+     * @param onClick  Consumer handling click events on this item, or null
+     * @param <T>      Type of the value
+     * @return The bound item
+     */
+    public static <T> BoundInventoryItem of(ObservableValue<T> value, Function<T, ItemStack> renderer, @Nullable Consumer<InventoryClickEvent> onClick) {
+        return new BoundInventoryItem(() -> renderer.apply(value.get()), 1, value::getVersion, onClick);
+    }
+
+    /**
+     * Evaluates the item if it is due at the given tick.
+     * Repeated calls during the same tick report the same result, so an item shown in
+     * several inventories is evaluated only once per tick.
+     *
+     * @param tick The current scheduler tick
+     * @return True if the stack changed during this tick
+     */
+    boolean poll(long tick) {
+        if (tick < nextPoll) return changedAt == tick;
+        nextPoll = tick + interval;
+
+        if (version != null) {
+            long current = version.getAsLong();
+            if (current == lastVersion) return false;
+            lastVersion = current;
+        }
+
+        ItemStack next = supplier.get();
+        if (next == null ? item == null : next.equals(item)) return false;
+
+        item = next;
+        changedAt = tick;
+        return true;
+    }
+}
@@ -1,6 +1,9 @@
 package de.ztiger.IF.inventory;
 
 import de.ztiger.IF.IFPlugin;
+import de.ztiger.IF.metrics.InventoryMetrics;
+import de.ztiger.IF.state.GuiState;
+import de.ztiger.IF.state.GuiStateStore;
 import lombok.Getter;
 import lombok.Setter;
 import net.kyori.adventure.text.Component;
@@ -10,26 +13,174 @@ import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.event.inventory.InventoryDragEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.inventory.ItemStack;
 
+import javax.annotation.Nullable;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.logging.Level;
 
 /**
  * Represents a chest inventory with panes and items.
  */
 public class ChestInventory implements InventoryHolder {
+    /**
+     * Weak references to every created inventory, used to count the ones not yet garbage collected.
+     */
+    private static final Set<Reference<ChestInventory>> liveInventories = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Queue receiving the references of collected inventories.
+     */
+    private static final ReferenceQueue<ChestInventory> collectedInventories = new ReferenceQueue<>();
+
     /**
      * The underlying Bukkit inventory.
      */
     @Getter
     private final Inventory inventory;
 
+    /**
+     * Number of rows of the inventory.
+     */
+    @Getter
+    private final int rows;
+
+    /**
+     * Title of the inventory.
+     */
+    @Getter
+    private final Component title;
+
     /**
      * The panes contained in the inventory.
      */
     private final List<Pane> panes = new ArrayList<>();
 
+    /**
+     * Dispatch table holding the topmost visible {@link InventoryItem} of every slot.
+     * Panes added later are drawn above panes added earlier.
+     */
+    private final InventoryItem[] slotItems;
+
+    /**
+     * Render buffer holding the stack every slot should show.
+     */
+    private final ItemStack[] desiredItems;
+
+    /**
+     * Bitset of positions whose desired stack may differ from the rendered one.
+     */
+    private long dirtySlots;
+
+    /**
+     * Whether a flush is already scheduled for the next tick.
+     */
+    private boolean flushScheduled;
+
+    /**
+     * Bitset of positions whose dispatched item is a {@link BoundInventoryItem}.
+     */
+    private long boundSlots;
+
+    /**
+     * Key under which the viewers' state is persisted in the {@link GuiStateStore}, null to not persist it.
+     * Should be unique per menu and only be used for inventories opened by a single player.
+     */
+    @Getter
+    @Setter
+    @Nullable
+    protected String stateKey;
+
+    /**
+     * Custom values persisted with the viewer's state, for example the active filter.
+     */
+    @Getter
+    protected final Map<String, String> stateValues = new HashMap<>();
+
+    /**
+     * Called after a persisted state was restored on open.
+     */
+    @Getter
+    @Setter
+    @Nullable
+    protected Consumer<GuiState> onStateRestore;
+
+    /**
+     * Key of the {@link InventoryPool} the inventory returns to when closed, null if it is not pooled.
+     */
+    @Getter
+    @Nullable
+    private Object poolKey;
+
+    /**
+     * State captured when the inventory entered the pool, restored whenever it is recycled.
+     */
+    @Nullable
+    private GuiState poolBaseline;
+
+    /**
+     * Panes captured when the inventory entered the pool, restored whenever it is recycled.
+     */
+    @Nullable
+    private List<Pane> poolPanes;
+
+    /**
+     * Contents of {@link #poolPanes} captured when the inventory entered the pool.
+     */
+    @Nullable
+    private List<Pane.Contents> poolContents;
+
+    /**
+     * Called after the inventory was reset for reuse by the {@link InventoryPool}, to reset custom state.
+     */
+    @Getter
+    @Setter
+    @Nullable
+    protected Consumer<ChestInventory> onRecycle;
+
+    /**
+     * Minimum time between two accepted clicks of a player in this inventory, in nanoseconds.
+     */
+    long clickDebounceNanos;
+
+    /**
+     * Minimum time between two accepted clicks of a player on the same slot, in nanoseconds.
+     */
+    long slotDebounceNanos;
+
+    /**
+     * Bitset of slots locked by pending async clicks.
+     */
+    private long lockedSlots;
+
+    /**
+     * Number of pending async clicks locking the whole inventory.
+     */
+    private int inventoryLocks;
+
+    /**
+     * Async clicks whose handler has not been applied yet. Only accessed on the main thread.
+     */
+    private final List<PendingClick> pendingClicks = new ArrayList<>();
+
+    /**
+     * Players currently viewing the inventory, maintained by the {@link InventoryListener}.
+     */
+    private final Set<Player> viewers = ConcurrentHashMap.newKeySet();
+
     /**
      * Global click handler for the inventory.
      */
@@ -48,6 +199,25 @@ public class ChestInventory implements InventoryHolder {
     @Setter
     protected Consumer<InventoryCloseEvent> onClose;
 
+    /**
+     * Handler called when a player is finished with the inventory, with the player's {@link UUID}.
+     * Runs on every close, and also when the inventory ends without a close event,
+     * for example when it is dropped from a {@link Navigator} history.
+     */
+    @Getter
+    @Setter
+    @Nullable
+    protected Consumer<UUID> onFinish;
+
+    /**
+     * Name under which the inventory's {@link InventoryMetrics} are recorded.
+     * Unnamed inventories are never instrumented.
+     */
+    @Getter
+    @Setter
+    @Nullable
+    protected String name;
+
     /**
      * Creates a chest inventory with the given title and number of rows.
      *
@@ -56,6 +226,34 @@ public class ChestInventory implements InventoryHolder {
      */
     public ChestInventory(int rows, Component title) {
         this.inventory = IFPlugin.getInstance().getServer().createInventory(this, rows * 9, title);
+        this.rows = rows;
+        this.title = title;
+        this.slotItems = new InventoryItem[rows * 9];
+        this.desiredItems = new ItemStack[rows * 9];
+
+        expungeCollected();
+        liveInventories.add(new WeakReference<>(this, collectedInventories));
+    }
+
+    /**
+     * Gets the number of chest inventories that have not been garbage collected yet.
+     * A number that keeps growing while the number of open inventories does not points to a leak.
+     *
+     * @return The number of live inventories
+     */
+    public static int getLiveCount() {
+        expungeCollected();
+        return liveInventories.size();
+    }
+
+    /**
+     * Forgets the references of collected inventories.
+     */
+    private static void expungeCollected() {
+        Reference<? extends ChestInventory> reference;
+        while ((reference = collectedInventories.poll()) != null) {
+            liveInventories.remove(reference);
+        }
     }
 
     /**
@@ -64,12 +262,205 @@ public class ChestInventory implements InventoryHolder {
      * @param player Player to open the inventory for
      */
     public void open(Player player) {
+        GuiStateStore store = GuiStateStore.getInstance();
+        if (stateKey != null && store != null) {
+            GuiState state = store.get(player.getUniqueId(), stateKey);
+            if (state != null) restoreState(state);
+        }
+
+        show(player);
+    }
+
+    /**
+     * Shows the inventory to the given player as it is, without restoring a persisted state.
+     *
+     * @param player Player to show the inventory to
+     */
+    void show(Player player) {
+        flush();
         player.openInventory(inventory);
         InventoryListener.getInstance().register(this, player);
     }
 
     /**
-     * Adds a pane to the inventory.
+     * Sets the minimum time between two clicks of a player in this inventory.
+     * Faster clicks are cancelled before any handler runs.
+     *
+     * @param millis Debounce time in milliseconds, 0 to disable
+     */
+    public void setClickDebounce(long millis) {
+        this.clickDebounceNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    /**
+     * Sets the minimum time between two clicks of a player on the same slot.
+     * Faster clicks are cancelled before any handler runs.
+     *
+     * @param millis Debounce time in milliseconds, 0 to disable
+     */
+    public void setSlotDebounce(long millis) {
+        this.slotDebounceNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    /**
+     * Gets the players currently viewing the inventory. Safe to read from any thread.
+     *
+     * @return Unmodifiable live view of the viewers
+     */
+    public Set<Player> getViewers() {
+        return Collections.unmodifiableSet(viewers);
+    }
+
+    /**
+     * Checks whether any player is viewing the inventory.
+     *
+     * @return True if the inventory has at least one viewer
+     */
+    public boolean hasViewers() {
+        return !viewers.isEmpty();
+    }
+
+    /**
+     * Adds a player to the viewers of the inventory.
+     *
+     * @param player The viewing {@link Player}
+     */
+    void addViewer(Player player) {
+        if (viewers.add(player) && viewers.size() == 1 && BindingScheduler.getInstance() != null) {
+            BindingScheduler.getInstance().track(this);
+        }
+    }
+
+    /**
+     * Removes a player from the viewers of the inventory.
+     *
+     * @param player The {@link Player} that stopped viewing
+     */
+    void removeViewer(Player player) {
+        if (viewers.remove(player) && viewers.isEmpty() && BindingScheduler.getInstance() != null) {
+            BindingScheduler.getInstance().untrack(this);
+        }
+    }
+
+    /**
+     * Removes a player who may no longer be online from the viewers of the inventory.
+     *
+     * @param playerId The {@link UUID} of the player
+     */
+    void removeViewer(UUID playerId) {
+        if (viewers.removeIf(viewer -> viewer.getUniqueId().equals(playerId)) && viewers.isEmpty() && BindingScheduler.getInstance() != null) {
+            BindingScheduler.getInstance().untrack(this);
+        }
+    }
+
+    /**
+     * Captures the current page of every paginated pane, the offset of every scrolling pane, the hidden panes and the custom state values.
+     *
+     * @return The captured {@link GuiState}
+     */
+    public GuiState captureState() {
+        int[] pages = new int[panes.size()];
+        long hiddenPanes = 0;
+
+        for (int i = 0; i < pages.length; i++) {
+            Pane pane = panes.get(i);
+            if (pane instanceof PagedPane pagedPane) pages[i] = pagedPane.getPage();
+            else if (pane instanceof ScrollingPane scrollingPane) pages[i] = scrollingPane.getOffset();
+            else pages[i] = -1;
+            if (!pane.isVisible() && i < 64) hiddenPanes |= 1L << i;
+        }
+
+        return new GuiState(pages, hiddenPanes, stateValues);
+    }
+
+    /**
+     * Restores a captured state. Panes are matched by index, pages that no longer exist are skipped.
+     *
+     * @param state The {@link GuiState} to restore
+     */
+    public void restoreState(GuiState state) {
+        applyState(state);
+        if (onStateRestore != null) onStateRestore.accept(state);
+    }
+
+    /**
+     * Applies the pages, scroll offsets, hidden panes and values of a state.
+     *
+     * @param state The {@link GuiState} to apply
+     */
+    private void applyState(GuiState state) {
+        for (int i = 0; i < panes.size() && i < state.getPaneCount(); i++) {
+            Pane pane = panes.get(i);
+
+            int page = state.getPage(i);
+            if (pane instanceof PagedPane pagedPane && page >= 0 && page < pagedPane.getPageCount() && page != pagedPane.getPage()) {
+                pagedPane.setPage(page);
+            } else if (pane instanceof ScrollingPane scrollingPane && page >= 0) {
+                scrollingPane.setOffset(page);
+            }
+
+            boolean visible = !state.isHidden(i);
+            if (pane.isVisible() != visible) pane.setVisible(visible);
+        }
+
+        stateValues.clear();
+        stateValues.putAll(state.getValues());
+    }
+
+    /**
+     * Marks the inventory as pooled and captures the panes, their items and the state it is reset to when recycled.
+     *
+     * @param key Key of the {@link InventoryPool}
+     */
+    void pool(Object key) {
+        this.poolKey = key;
+        this.poolBaseline = captureState();
+        this.poolPanes = List.copyOf(panes);
+        this.poolContents = new ArrayList<>(panes.size());
+        for (Pane pane : panes) poolContents.add(pane.captureContents());
+    }
+
+    /**
+     * Resets a closed pooled inventory for its next viewer. Restores the captured panes with their items and
+     * the baseline state, drops anything players put into the inventory and re-resolves every slot, so items
+     * changed by handlers, bindings or async results are not passed on to the next player.
+     */
+    void recycle() {
+        if (poolPanes != null && poolContents != null) {
+            for (Pane pane : panes) {
+                if (!poolPanes.contains(pane)) pane.setChestInventory(null);
+            }
+
+            panes.clear();
+            for (int i = 0; i < poolPanes.size(); i++) {
+                Pane pane = poolPanes.get(i);
+                pane.restoreContents(poolContents.get(i));
+                pane.setChestInventory(this);
+                panes.add(pane);
+            }
+        }
+
+        if (poolBaseline != null) applyState(poolBaseline);
+
+        inventory.clear();
+        refreshSlots((1L << (rows * 9)) - 1);
+
+        if (onRecycle != null) onRecycle.accept(this);
+    }
+
+    /**
+     * Persists the current state for a player if the inventory has a state key.
+     *
+     * @param playerId The {@link UUID} of the player leaving the inventory
+     */
+    void saveState(UUID playerId) {
+        GuiStateStore store = GuiStateStore.getInstance();
+        if (stateKey != null && store != null) store.save(playerId, stateKey, captureState());
+    }
+
+    /**
+     * Adds a pane to the inventory. The pane is placed above all previously added panes,
+     * so its items win wherever panes overlap.
      *
      * @param pane {@link Pane} to add
      */
@@ -85,40 +476,338 @@ public class ChestInventory implements InventoryHolder {
      * @param pane {@link Pane} to remove
      */
     public void removePane(Pane pane) {
-        panes.remove(pane);
+        if (!panes.remove(pane)) return;
+
+        disablePane(pane);
+        pane.setChestInventory(null);
     }
 
     /**
      * Updates the inventory items based on the given pane.
+     * Slots covered by a visible pane above it keep showing that pane's items.
      *
      * @param pane The {@link Pane} to update from
      */
     public void updateByPane(Pane pane) {
-        for (Integer position : pane.getInventoryItems().keySet()) {
-            InventoryItem item = pane.getInventoryItems().get(position);
-            inventory.setItem(position, item.getItem());
-        }
+        refreshSlots(pane.getSlotMask());
     }
 
     /**
      * Disables the items in the inventory based on the given pane.
+     * Must be called after the pane was hidden, removed or switched its contents.
+     * Its slots are cleared, or show the items of the visible panes below it.
      *
      * @param pane The {@link Pane} to disable
      */
     public void disablePane(Pane pane) {
-        for (Integer position : pane.getInventoryItems().keySet()) {
-            inventory.setItem(position, null);
-        }
+        refreshSlots(pane.getSlotMask());
     }
 
     /**
-     * Updates an item in the inventory at the given position.
+     * Updates an item in the inventory at the given position, regardless of the panes covering it.
      *
      * @param position Position of the item to update
      * @param item     New {@link InventoryItem} to set
      */
     public void updateItem(int position, InventoryItem item) {
-        inventory.setItem(position, item.getItem());
+        setSlotItem(position, item);
+    }
+
+    /**
+     * Refreshes every position set in the given bitset.
+     *
+     * @param mask Bitset of positions to refresh
+     */
+    void refreshSlots(long mask) {
+        for (; mask != 0; mask &= mask - 1) {
+            refreshSlot(Long.numberOfTrailingZeros(mask));
+        }
+    }
+
+    /**
+     * Resolves the topmost visible item at the given position and writes it to the
+     * dispatch table and the underlying inventory.
+     *
+     * @param position Position of the slot to refresh
+     */
+    void refreshSlot(int position) {
+        if (position < 0 || position >= slotItems.length) return;
+
+        setSlotItem(position, resolveItem(position));
+    }
+
+    /**
+     * Writes an item to the dispatch table and the render buffer.
+     *
+     * @param position Position of the slot
+     * @param item     The {@link InventoryItem} to show, or null to clear the slot
+     */
+    private void setSlotItem(int position, @Nullable InventoryItem item) {
+        slotItems[position] = item;
+        desiredItems[position] = item == null ? null : item.getItem();
+
+        if (item instanceof BoundInventoryItem) boundSlots |= 1L << position;
+        else boundSlots &= ~(1L << position);
+
+        markDirty(position);
+    }
+
+    /**
+     * Evaluates the due {@link BoundInventoryItem}s and marks the slots whose stack changed.
+     *
+     * @param tick The current {@link BindingScheduler} tick
+     */
+    void pollBindings(long tick) {
+        for (long mask = boundSlots; mask != 0; mask &= mask - 1) {
+            int position = Long.numberOfTrailingZeros(mask);
+            BoundInventoryItem item = (BoundInventoryItem) slotItems[position];
+
+            if (item.poll(tick)) {
+                desiredItems[position] = item.getItem();
+                markDirty(position);
+            }
+        }
+    }
+
+    /**
+     * Finds the item of the topmost visible pane at the given position.
+     *
+     * @param position Position of the slot
+     * @return The resolved {@link InventoryItem}, or null if no visible pane covers the position
+     */
+    @Nullable
+    protected InventoryItem resolveItem(int position) {
+        for (int i = panes.size() - 1; i >= 0; i--) {
+            Pane pane = panes.get(i);
+            if (!pane.isVisible()) continue;
+
+            InventoryItem item = pane.getItem(position);
+            if (item != null) return item;
+        }
+        return null;
+    }
+
+    /**
+     * Gets the item currently shown at the given position.
+     *
+     * @param position Position of the slot
+     * @return The {@link InventoryItem} in the dispatch table, or null if the slot is empty
+     */
+    @Nullable
+    public InventoryItem getSlotItem(int position) {
+        if (position < 0 || position >= slotItems.length) return null;
+        return slotItems[position];
+    }
+
+    /**
+     * Marks a position for the next flush and schedules one if the inventory has viewers.
+     * Changes to an inventory nobody views are kept until it is opened.
+     *
+     * @param position Position of the changed slot
+     */
+    private void markDirty(int position) {
+        dirtySlots |= 1L << position;
+        slotChanged(position);
+
+        if (!flushScheduled && !viewers.isEmpty()) {
+            flushScheduled = true;
+            IFPlugin.getInstance().getServer().getScheduler().runTask(IFPlugin.getInstance(), this::flush);
+        }
+    }
+
+    /**
+     * Called whenever the item or stack of a slot changed, after the slot was marked for the next flush.
+     *
+     * @param position Position of the changed slot
+     */
+    void slotChanged(int position) {
+    }
+
+    /**
+     * Called when the {@link InventoryListener} stopped tracking a player in this inventory,
+     * on every path: close, quit, stale entry sweep and shutdown.
+     */
+    void released() {
+    }
+
+    /**
+     * Pushes all pending slot changes to the current viewers right away instead of on the next tick.
+     * Only the changed slots are sent, and only to the players viewing this inventory.
+     * Does nothing if the inventory has no viewers, the changes are then sent when it is opened.
+     */
+    public void broadcast() {
+        if (!viewers.isEmpty()) flush();
+    }
+
+    /**
+     * Updates the item at the given position and pushes it to the current viewers right away.
+     *
+     * @param position Position of the item to update
+     * @param item     New {@link InventoryItem} to set
+     */
+    public void broadcast(int position, InventoryItem item) {
+        updateItem(position, item);
+        broadcast();
+    }
+
+    /**
+     * Writes all pending slot changes to the underlying inventory.
+     * Slots whose live content already equals the desired stack are skipped, and slots without a pending
+     * change are never touched, so items players put into unprotected slots are kept.
+     * Pending changes are flushed automatically once per tick.
+     */
+    public void flush() {
+        flushScheduled = false;
+
+        long mask = dirtySlots;
+        dirtySlots = 0;
+        if (mask == 0) return;
+
+        boolean instrumented = isInstrumented();
+        long start = instrumented ? System.nanoTime() : 0;
+        int written = 0;
+
+        for (; mask != 0; mask &= mask - 1) {
+            int position = Long.numberOfTrailingZeros(mask);
+            ItemStack desired = desiredItems[position];
+            ItemStack live = inventory.getItem(position);
+
+            boolean liveEmpty = live == null || live.isEmpty();
+            if (desired == null ? liveEmpty : !liveEmpty && desired.equals(live)) continue;
+
+            inventory.setItem(position, desired);
+            written++;
+        }
+
+        if (instrumented && written > 0) InventoryMetrics.recordRender(name, written, System.nanoTime() - start);
+    }
+
+    /**
+     * Checks whether handler calls and renders of this inventory are measured.
+     *
+     * @return True if the inventory is named and metrics are enabled
+     */
+    private boolean isInstrumented() {
+        return name != null && InventoryMetrics.isEnabled();
+    }
+
+    /**
+     * Describes the topmost visible pane holding the given item at a position, for slow handler reports.
+     *
+     * @param position Position of the slot
+     * @param item     The {@link InventoryItem} shown at the position
+     * @return The pane's index and type, or null if no pane holds the item
+     */
+    @Nullable
+    private String describePane(int position, InventoryItem item) {
+        for (int i = panes.size() - 1; i >= 0; i--) {
+            Pane pane = panes.get(i);
+            if (pane.isVisible() && pane.getItem(position) == item) return "#" + i + " " + pane.getClass().getSimpleName();
+        }
+        return null;
+    }
+
+    /**
+     * Gets the topmost visible pane holding an item at the given position.
+     *
+     * @param position Position of the slot
+     * @return The {@link Pane}, or null if no visible pane covers the position
+     */
+    @Nullable
+    public Pane getPaneAt(int position) {
+        for (int i = panes.size() - 1; i >= 0; i--) {
+            Pane pane = panes.get(i);
+            if (pane.isVisible() && pane.getItem(position) != null) return pane;
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether clicks at the given raw slot are locked by a pending async click.
+     *
+     * @param rawSlot The raw slot of the click
+     * @return True if the click must be rejected
+     */
+    public boolean isLocked(int rawSlot) {
+        if (inventoryLocks > 0) return true;
+        return rawSlot >= 0 && rawSlot < slotItems.length && (lockedSlots & (1L << rawSlot)) != 0;
+    }
+
+    /**
+     * Locks the clicked slot or inventory and runs the item's handler off the main thread.
+     *
+     * @param event The {@link InventoryClickEvent} that triggered the click
+     * @param item  The clicked {@link AsyncInventoryItem}
+     */
+    void submitAsyncClick(InventoryClickEvent event, AsyncInventoryItem item) {
+        int slot = event.getRawSlot();
+        if (isLocked(slot)) return;
+
+        AsyncInventoryItem.Target target = new AsyncInventoryItem.Target(slot, getPaneAt(slot), item);
+        PendingClick pending = new PendingClick(event.getWhoClicked().getUniqueId(), target, item.lock);
+        pendingClicks.add(pending);
+        if (pending.lock == AsyncInventoryItem.Lock.INVENTORY) inventoryLocks++;
+        else lockedSlots |= 1L << slot;
+
+        AsyncInventoryItem.Click click = new AsyncInventoryItem.Click(pending.playerId, slot, event.getClick());
+        IFPlugin plugin = IFPlugin.getInstance();
+
+        pending.future = AsyncInventoryItem.EXECUTOR.submit(() -> {
+            AsyncInventoryItem.Result result;
+            try {
+                result = item.handler.handle(click);
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.WARNING, "Async click handler failed in slot " + slot, e);
+                result = null;
+            }
+
+            AsyncInventoryItem.Result finalResult = result;
+            if (plugin.isEnabled()) {
+                plugin.getServer().getScheduler().runTask(plugin, () -> completeAsyncClick(pending, finalResult));
+            }
+        });
+    }
+
+    /**
+     * Releases the lock of a finished async click and applies its result. Runs on the main thread.
+     *
+     * @param pending The finished {@link PendingClick}
+     * @param result  The handler's result, or null if it failed
+     */
+    private void completeAsyncClick(PendingClick pending, @Nullable AsyncInventoryItem.Result result) {
+        if (!pendingClicks.remove(pending)) return;
+
+        unlock(pending);
+        if (result != null) result.apply(this, pending.target);
+    }
+
+    /**
+     * Interrupts and discards the pending async clicks of a player.
+     *
+     * @param playerId The {@link UUID} of the player who closed the inventory
+     */
+    void cancelAsyncClicks(UUID playerId) {
+        if (pendingClicks.isEmpty()) return;
+
+        pendingClicks.removeIf(pending -> {
+            if (!pending.playerId.equals(playerId)) return false;
+
+            if (pending.future != null) pending.future.cancel(true);
+            unlock(pending);
+            return true;
+        });
+    }
+
+    /**
+     * Releases the lock held by a pending async click.
+     *
+     * @param pending The {@link PendingClick}
+     */
+    private void unlock(PendingClick pending) {
+        if (pending.lock == AsyncInventoryItem.Lock.INVENTORY) inventoryLocks--;
+        else lockedSlots &= ~(1L << pending.target.slot());
     }
 
     /**
@@ -127,7 +816,69 @@ public class ChestInventory implements InventoryHolder {
      * @param event {@link InventoryClickEvent}
      */
     public void callOnGlobalClick(InventoryClickEvent event) {
-        if (onGlobalClick != null) onGlobalClick.accept(event);
+        if (!isInstrumented()) {
+            if (onGlobalClick != null) onGlobalClick.accept(event);
+            return;
+        }
+
+        InventoryMetrics.recordClick(name);
+        if (onGlobalClick == null) return;
+
+        long start = System.nanoTime();
+        onGlobalClick.accept(event);
+        InventoryMetrics.recordHandler(name, "global-click", event.getRawSlot(), null, System.nanoTime() - start);
+    }
+
+    /**
+     * Dispatches a drag. If a visible pane declares drag regions, drags touching a top inventory slot
+     * outside every region or a locked slot are cancelled before any handler runs. Otherwise the global
+     * drag handler and the handlers of the touched regions are called.
+     *
+     * @param event The {@link InventoryDragEvent} triggered by the drag
+     */
+    public void callOnDrag(InventoryDragEvent event) {
+        long allowed = 0;
+        for (Pane pane : panes) {
+            if (pane.isVisible()) allowed |= pane.getDragMask();
+        }
+
+        if (allowed == 0) {
+            callOnGlobalDrag(event);
+            return;
+        }
+
+        long slots = 0;
+        for (int rawSlot : event.getRawSlots()) {
+            if (rawSlot < slotItems.length) slots |= 1L << rawSlot;
+        }
+
+        if ((slots & ~allowed) != 0 || (slots & lockedSlots) != 0 || (slots != 0 && inventoryLocks > 0)) {
+            event.setCancelled(true);
+            return;
+        }
+
+        callOnGlobalDrag(event);
+        if (slots == 0 || event.isCancelled()) return;
+
+        for (int i = 0; i < panes.size(); i++) {
+            Pane pane = panes.get(i);
+            if (!pane.isVisible() || (pane.getDragMask() & slots) == 0) continue;
+
+            for (Pane.DragRegion region : pane.getDragRegions()) {
+                long hit = region.mask() & slots;
+                if (hit == 0 || region.handler() == null) continue;
+
+                if (!isInstrumented()) {
+                    region.handler().onDrag(event, hit);
+                    continue;
+                }
+
+                long start = System.nanoTime();
+                region.handler().onDrag(event, hit);
+                InventoryMetrics.recordHandler(name, "region-drag", Long.numberOfTrailingZeros(hit),
+                        "#" + i + " " + pane.getClass().getSimpleName(), System.nanoTime() - start);
+            }
+        }
     }
 
     /**
@@ -136,27 +887,108 @@ public class ChestInventory implements InventoryHolder {
      * @param event InventoryDragEvent
      */
     public void callOnGlobalDrag(InventoryDragEvent event) {
-        if (onGlobalDrag != null) onGlobalDrag.accept(event);
+        if (onGlobalDrag == null) return;
+
+        if (!isInstrumented()) {
+            onGlobalDrag.accept(event);
+            return;
+        }
+
+        long start = System.nanoTime();
+        onGlobalDrag.accept(event);
+        InventoryMetrics.recordHandler(name, "drag", -1, null, System.nanoTime() - start);
     }
 
+    /**
+     * Calls the close handler of the inventory.
+     *
+     * @param event {@link InventoryCloseEvent}
+     */
     public void callOnClose(InventoryCloseEvent event) {
-        if (onClose != null) onClose.accept(event);
+        if (onClose == null) return;
+
+        if (!isInstrumented()) {
+            onClose.accept(event);
+            return;
+        }
+
+        long start = System.nanoTime();
+        onClose.accept(event);
+        InventoryMetrics.recordHandler(name, "close", -1, null, System.nanoTime() - start);
+    }
+
+    /**
+     * Calls the finish handler of the inventory.
+     *
+     * @param playerId The {@link UUID} of the player that is finished with the inventory
+     */
+    public void callOnFinish(UUID playerId) {
+        if (onFinish == null) return;
+
+        if (!isInstrumented()) {
+            onFinish.accept(playerId);
+            return;
+        }
+
+        long start = System.nanoTime();
+        onFinish.accept(playerId);
+        InventoryMetrics.recordHandler(name, "finish", -1, null, System.nanoTime() - start);
     }
 
     /**
-     * Calls the onClick handler for the item at the clicked position.
+     * Calls the onClick handler of the topmost visible item at the clicked position.
+     * Clicks outside this inventory are ignored.
      *
      * @param event {@link InventoryClickEvent}
      */
     public void callOnItemClick(InventoryClickEvent event) {
-        for (Pane pane : panes) {
-            if(!pane.isVisible()) continue;
+        int slot = event.getRawSlot();
+        if (slot < 0 || slot >= slotItems.length) return;
 
-            InventoryItem item = pane.getInventoryItems().get(event.getSlot());
+        InventoryItem item = slotItems[slot];
+        if (item == null) return;
 
-            if (item != null) {
-                item.callOnClick(event);
-            }
+        if (!isInstrumented()) {
+            item.callOnClick(event);
+            return;
+        }
+
+        long start = System.nanoTime();
+        item.callOnClick(event);
+        long nanos = System.nanoTime() - start;
+
+        String pane = nanos > InventoryMetrics.getBudgetNanos() ? describePane(slot, item) : null;
+        InventoryMetrics.recordHandler(name, "click", slot, pane, nanos);
+    }
+
+    /**
+     * An async click whose handler has not been applied yet.
+     */
+    private static final class PendingClick {
+        /**
+         * The player who clicked.
+         */
+        private final UUID playerId;
+
+        /**
+         * What was clicked, captured when the click was submitted.
+         */
+        private final AsyncInventoryItem.Target target;
+
+        /**
+         * What the click locks.
+         */
+        private final AsyncInventoryItem.Lock lock;
+
+        /**
+         * The running handler, used to interrupt it.
+         */
+        private volatile Future<?> future;
+
+        private PendingClick(UUID playerId, AsyncInventoryItem.Target target, AsyncInventoryItem.Lock lock) {
+            this.playerId = playerId;
+            this.target = target;
+            this.lock = lock;
         }
     }
 }
@@ -0,0 +1,191 @@
+package de.ztiger.IF.inventory;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rejects clicks that come in too fast, before any handler runs.
+ * Combines the per-inventory and per-slot debounce configured on each {@link ChestInventory}
+ * with a per-player token bucket. State lives in primitive arrays indexed by a per-player
+ * index, so checking a click does not allocate. Only accessed on the main thread.
+ */
+public class ClickLimiter {
+
+    /**
+     * Fixed-point scale of the token counts.
+     */
+    private static final long TOKEN = 1000;
+
+    /**
+     * Largest refill interval taken into account, to keep the refill math from overflowing.
+     */
+    private static final long MAX_REFILL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    /**
+     * Number of slots with their own debounce timestamp, the slots of the largest chest inventory.
+     */
+    private static final int SLOTS = Pane.MAX_SLOTS;
+
+    /**
+     * Bucket capacity in clicks. 0 disables the rate limit.
+     */
+    @Getter
+    private int capacity;
+
+    /**
+     * Clicks refilled per second.
+     */
+    @Getter
+    private double refillPerSecond;
+
+    /**
+     * Index into the state arrays by player.
+     */
+    private final Map<UUID, Integer> indices = new HashMap<>();
+
+    /**
+     * Released indices available for reuse.
+     */
+    private int[] freeIndices = new int[16];
+    private int freeCount;
+    private int nextIndex;
+
+    /**
+     * Remaining tokens per player, in thousandths of a click.
+     */
+    private long[] tokens = new long[16];
+
+    /**
+     * Time of the last refill per player, in nanoseconds.
+     */
+    private long[] lastRefill = new long[16];
+
+    /**
+     * Time of the last accepted click per player, in nanoseconds.
+     */
+    private long[] lastClick = new long[16];
+
+    /**
+     * Whether the player had an accepted click since they were first tracked.
+     */
+    private boolean[] clicked = new boolean[16];
+
+    /**
+     * Bitset of the slots with an accepted click per player.
+     */
+    private long[] clickedSlots = new long[16];
+
+    /**
+     * Time of the last accepted click per player and slot, in nanoseconds, at {@code index * SLOTS + slot}.
+     */
+    private long[] slotClicks = new long[16 * SLOTS];
+
+    /**
+     * Configures the per-player token bucket.
+     *
+     * @param capacity        Maximum burst of clicks, 0 to disable the rate limit
+     * @param refillPerSecond Clicks regained per second
+     */
+    public void setRateLimit(int capacity, double refillPerSecond) {
+        this.capacity = Math.max(0, capacity);
+        this.refillPerSecond = Math.max(0, refillPerSecond);
+        Arrays.fill(tokens, this.capacity * TOKEN);
+    }
+
+    /**
+     * Starts tracking a player who opened an inventory. Players that are already tracked keep their
+     * tokens and debounce state, so closing and reopening an inventory does not bypass the debounce.
+     *
+     * @param playerId The {@link UUID} of the player
+     */
+    void track(UUID playerId) {
+        Integer index = indices.get(playerId);
+
+        if (index == null) {
+            index = freeCount > 0 ? freeIndices[--freeCount] : nextIndex++;
+            ensureCapacity(index + 1);
+            indices.put(playerId, index);
+            tokens[index] = capacity * TOKEN;
+            lastRefill[index] = System.nanoTime();
+            clicked[index] = false;
+            clickedSlots[index] = 0;
+        }
+    }
+
+    /**
+     * Stops tracking a player and frees their index.
+     *
+     * @param playerId The {@link UUID} of the player
+     */
+    void release(UUID playerId) {
+        Integer index = indices.remove(playerId);
+        if (index == null) return;
+
+        if (freeCount == freeIndices.length) freeIndices = Arrays.copyOf(freeIndices, freeCount * 2);
+        freeIndices[freeCount++] = index;
+    }
+
+    /**
+     * Checks whether a click is allowed and records it if so.
+     *
+     * @param playerId       The {@link UUID} of the clicking player
+     * @param chestInventory The {@link ChestInventory} clicked in
+     * @param rawSlot        The raw slot of the click
+     * @return True if the click may be handled, false if it must be cancelled
+     */
+    boolean tryAcquire(UUID playerId, ChestInventory chestInventory, int rawSlot) {
+        Integer boxed = indices.get(playerId);
+        if (boxed == null) return true;
+
+        int index = boxed;
+        long now = System.nanoTime();
+
+        boolean slotTracked = rawSlot >= 0 && rawSlot < SLOTS;
+
+        if (clicked[index] && now - lastClick[index] < chestInventory.clickDebounceNanos) return false;
+        if (slotTracked && (clickedSlots[index] & (1L << rawSlot)) != 0
+                && now - slotClicks[index * SLOTS + rawSlot] < chestInventory.slotDebounceNanos) return false;
+
+        if (capacity > 0) {
+            long elapsed = Math.min(now - lastRefill[index], MAX_REFILL_NANOS);
+            long refill = (long) (elapsed * refillPerSecond * TOKEN / 1_000_000_000L);
+            if (refill > 0) {
+                tokens[index] = Math.min(capacity * TOKEN, tokens[index] + refill);
+                lastRefill[index] = now;
+            }
+
+            if (tokens[index] < TOKEN) return false;
+            tokens[index] -= TOKEN;
+        }
+
+        lastClick[index] = now;
+        clicked[index] = true;
+        if (slotTracked) {
+            slotClicks[index * SLOTS + rawSlot] = now;
+            clickedSlots[index] |= 1L << rawSlot;
+        }
+        return true;
+    }
+
+    /**
+     * Grows the state arrays to hold at least the given number of players.
+     *
+     * @param size Required number of players
+     */
+    private void ensureCapacity(int size) {
+        if (size <= tokens.length) return;
+
+        int length = Math.max(size, tokens.length * 2);
+        tokens = Arrays.copyOf(tokens, length);
+        lastRefill = Arrays.copyOf(lastRefill, length);
+        lastClick = Arrays.copyOf(lastClick, length);
+        clicked = Arrays.copyOf(clicked, length);
+        clickedSlots = Arrays.copyOf(clickedSlots, length);
+        slotClicks = Arrays.copyOf(slotClicks, length * SLOTS);
+    }
+}
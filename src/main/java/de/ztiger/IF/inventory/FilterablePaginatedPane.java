@@ -0,0 +1,234 @@
+package de.ztiger.IF.inventory;
+
+import de.ztiger.IF.data.Pattern;
+import de.ztiger.IF.data.SearchIndex;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * A virtual paginated pane showing the entries of a {@link SearchIndex} that match a query and a set of tags.
+ * <p>
+ * Changing the filters computes the matching ids from the index and re-pages them lazily, only the visible page
+ * is rendered. A query extending the previous one or an additional tag narrows the previous result instead
+ * of searching every entry again.
+ *
+ * @param <T> Type of the entries
+ */
+public class FilterablePaginatedPane<T> extends VirtualPaginatedPane<T> {
+
+    /**
+     * The searched index.
+     */
+    @Getter
+    protected final SearchIndex<T> index;
+
+    /**
+     * Provider paging the current result.
+     */
+    private final ResultProvider<T> results;
+
+    /**
+     * The current query.
+     */
+    @Getter
+    protected String query = "";
+
+    /**
+     * Tags every shown entry must carry.
+     */
+    protected final Set<String> tags = new HashSet<>();
+
+    /**
+     * Ids matching the current filters.
+     */
+    private BitSet result;
+
+    /**
+     * Creates a filterable paginated pane showing every entry of the index until filters are set.
+     *
+     * @param layout   Positions (slot + row * 9) filled on every page, in entry order
+     * @param index    The {@link SearchIndex} to search
+     * @param renderer Function rendering an entry into an {@link InventoryItem}
+     */
+    public FilterablePaginatedPane(int[] layout, SearchIndex<T> index, Function<T, InventoryItem> renderer) {
+        this(layout, index, renderer, new ResultProvider<>(index));
+    }
+
+    /**
+     * Creates a filterable paginated pane filling every slot marked with the given key in the pattern.
+     *
+     * @param pattern  The {@link Pattern} describing the page layout
+     * @param key      Character marking the entry slots in the pattern
+     * @param index    The {@link SearchIndex} to search
+     * @param renderer Function rendering an entry into an {@link InventoryItem}
+     */
+    public FilterablePaginatedPane(Pattern pattern, char key, SearchIndex<T> index, Function<T, InventoryItem> renderer) {
+        this(layoutOf(pattern, key), index, renderer, new ResultProvider<>(index));
+    }
+
+    private FilterablePaginatedPane(int[] layout, SearchIndex<T> index, Function<T, InventoryItem> renderer, ResultProvider<T> results) {
+        super(layout, index.size(), results, renderer);
+        this.index = index;
+        this.results = results;
+        this.result = index.all();
+        results.ids = result.stream().toArray();
+    }
+
+    /**
+     * Gets the tags every shown entry must carry.
+     *
+     * @return Unmodifiable view of the required tags
+     */
+    public Set<String> getTags() {
+        return Collections.unmodifiableSet(tags);
+    }
+
+    /**
+     * Gets the number of entries matching the current filters.
+     *
+     * @return The number of matches
+     */
+    public int getResultCount() {
+        return results.ids.length;
+    }
+
+    /**
+     * Sets the query and shows the first page of the matches.
+     *
+     * @param query The query, matched at word starts of the entry names
+     */
+    public void setQuery(String query) {
+        String normalized = SearchIndex.normalize(query);
+        if (normalized.equals(this.query)) return;
+
+        BitSet within = normalized.startsWith(this.query) ? result : null;
+        if (within == null) {
+            within = index.all();
+            for (String tag : tags) index.filter(within, tag);
+        }
+
+        this.query = normalized;
+        update(index.search(normalized, within));
+    }
+
+    /**
+     * Adds or removes a required tag and shows the first page of the matches.
+     *
+     * @param tag The tag to toggle
+     * @return True if the tag is now required
+     */
+    public boolean toggleTag(String tag) {
+        if (tags.remove(tag)) {
+            update(compute());
+            return false;
+        }
+
+        tags.add(tag);
+        update(index.filter((BitSet) result.clone(), tag));
+        return true;
+    }
+
+    /**
+     * Replaces the required tags and shows the first page of the matches.
+     *
+     * @param tags The tags every shown entry must carry
+     */
+    public void setTags(Collection<String> tags) {
+        Set<String> next = new HashSet<>(tags);
+        if (next.equals(this.tags)) return;
+
+        boolean narrowing = next.containsAll(this.tags);
+        Set<String> added = new HashSet<>(next);
+        added.removeAll(this.tags);
+
+        this.tags.clear();
+        this.tags.addAll(next);
+
+        if (!narrowing) {
+            update(compute());
+            return;
+        }
+
+        BitSet narrowed = (BitSet) result.clone();
+        for (String tag : added) index.filter(narrowed, tag);
+        update(narrowed);
+    }
+
+    /**
+     * Removes the query and all required tags.
+     */
+    public void clearFilters() {
+        if (query.isEmpty() && tags.isEmpty()) return;
+
+        query = "";
+        tags.clear();
+        update(index.all());
+    }
+
+    /**
+     * Computes the result of the current filters from scratch.
+     *
+     * @return The matching ids
+     */
+    private BitSet compute() {
+        BitSet ids = index.all();
+        for (String tag : tags) index.filter(ids, tag);
+        return index.search(query, ids);
+    }
+
+    /**
+     * Shows a new result, starting at the first page.
+     * The page is reset before invalidating, so only the first page of the new result is rendered.
+     *
+     * @param result The matching ids
+     */
+    private void update(BitSet result) {
+        this.result = result;
+        results.ids = result.stream().toArray();
+
+        Pane shown = cache.get(page);
+        long shownMask = shown == null ? 0 : shown.getSlotMask();
+
+        page = 0;
+        setTotalEntries(results.ids.length);
+
+        if (chestInventory != null) {
+            chestInventory.refreshSlots(shownMask & ~getSlotMask());
+            prefetch(1);
+        }
+    }
+
+    /**
+     * Pages the current result. Read from async prefetches, so the ids are replaced, never modified.
+     *
+     * @param <T> Type of the entries
+     */
+    private static final class ResultProvider<T> implements PageProvider<T> {
+
+        private final SearchIndex<T> index;
+        private volatile int[] ids = new int[0];
+
+        private ResultProvider(SearchIndex<T> index) {
+            this.index = index;
+        }
+
+        @Override
+        public List<T> getEntries(int page, int pageSize) {
+            int[] current = ids;
+            int start = Math.min(current.length, page * pageSize);
+            int end = Math.min(current.length, start + pageSize);
+
+            List<T> entries = new ArrayList<>(end - start);
+            for (int i = start; i < end; i++) entries.add(index.get(current[i]));
+            return entries;
+        }
+    }
+}
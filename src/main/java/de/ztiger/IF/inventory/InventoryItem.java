@@ -1,5 +1,6 @@
 package de.ztiger.IF.inventory;
 
+import de.ztiger.IF.util.ItemTemplate;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
@@ -31,6 +32,37 @@ public class InventoryItem {
     @Getter
     protected Consumer<InventoryClickEvent> onClick;
 
+    /**
+     * Creates an inventory item showing the given template.
+     * The item holds its own copy of the template's stack, share the item to back several inventories with one copy.
+     *
+     * @param template The {@link ItemTemplate} to show
+     */
+    public InventoryItem(@NotNull ItemTemplate template) {
+        this(template.create(), null);
+    }
+
+    /**
+     * Creates an inventory item showing the given template with a click handler.
+     * The item holds its own copy of the template's stack, share the item to back several inventories with one copy.
+     *
+     * @param template The {@link ItemTemplate} to show
+     * @param onClick  Consumer handling click events on this item
+     */
+    public InventoryItem(@NotNull ItemTemplate template, @Nullable Consumer<InventoryClickEvent> onClick) {
+        this(template.create(), onClick);
+    }
+
+    /**
+     * Creates a copy of this item showing another stack, with the same click handling.
+     *
+     * @param item The new {@link ItemStack}
+     * @return The new {@link InventoryItem}
+     */
+    InventoryItem withStack(@NotNull ItemStack item) {
+        return new InventoryItem(item, onClick);
+    }
+
     /**
      * Calls the onClick consumer if it is set.
      *
@@ -1,17 +1,23 @@
 package de.ztiger.IF.inventory;
 
 import lombok.Getter;
+import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.plugin.Plugin;
 
-import java.util.HashMap;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Listener for inventory events to manage custom chest inventories.
@@ -22,22 +28,127 @@ public class InventoryListener implements Listener {
      * Singleton instance of the InventoryListener.
      */
     @Getter
-    private static InventoryListener instance;
+    private static volatile InventoryListener instance;
 
     /**
      * Map of open {@link ChestInventory} associated with player {@link UUID}.
+     * Reads are lock-free and safe from any thread, writes happen on the thread owning the player.
+     */
+    private final Map<UUID, ChestInventory> openInventories = new ConcurrentHashMap<>();
+
+    /**
+     * Read-only view of {@link #openInventories}.
+     */
+    private final Map<UUID, ChestInventory> openInventoriesView = Collections.unmodifiableMap(openInventories);
+
+    /**
+     * Limiter rejecting clicks that come in too fast.
      */
     @Getter
-    public final Map<UUID, ChestInventory> openInventories = new HashMap<>();
+    private final ClickLimiter clickLimiter = new ClickLimiter();
+
+    /**
+     * Interval of the stale entry sweeper, in ticks.
+     */
+    public static final long SWEEP_INTERVAL = 600L;
 
     /**
-     * Initializes the InventoryListener and registers it with the given plugin.
+     * Initializes the InventoryListener, registers it with the given plugin and starts the stale entry sweeper.
      *
      * @param plugin The {@link Plugin} to register the listener with
      */
     public static void init(Plugin plugin) {
         instance = new InventoryListener();
         plugin.getServer().getPluginManager().registerEvents(instance, plugin);
+        plugin.getServer().getScheduler().runTaskTimer(plugin, instance::sweep, SWEEP_INTERVAL, SWEEP_INTERVAL);
+    }
+
+    /**
+     * Closes every open chest inventory, clears the registry and stops the async click handlers.
+     * Called when the plugin is disabled.
+     */
+    public void shutdown() {
+        for (UUID playerId : new ArrayList<>(openInventories.keySet())) {
+            Player player = Bukkit.getPlayer(playerId);
+            if (player != null) player.closeInventory();
+        }
+
+        for (UUID playerId : new ArrayList<>(openInventories.keySet())) {
+            release(playerId, null);
+        }
+
+        AsyncInventoryItem.EXECUTOR.shutdownNow();
+    }
+
+    /**
+     * Removes registry entries whose player went offline or no longer looks at the registered inventory,
+     * for example because the close event never fired.
+     *
+     * @return The number of removed entries
+     */
+    public int sweep() {
+        int removed = 0;
+
+        for (Map.Entry<UUID, ChestInventory> entry : openInventories.entrySet()) {
+            Player player = Bukkit.getPlayer(entry.getKey());
+            if (player != null && player.getOpenInventory().getTopInventory().getHolder(false) == entry.getValue()) continue;
+
+            if (release(entry.getKey(), player) != null) removed++;
+        }
+
+        return removed;
+    }
+
+    /**
+     * Gets a read-only view of the open inventories by player {@link UUID}. Safe to read from any thread.
+     *
+     * @return Unmodifiable map of player UUIDs to their open {@link ChestInventory}
+     */
+    public Map<UUID, ChestInventory> getOpenInventories() {
+        return openInventoriesView;
+    }
+
+    /**
+     * Gets the chest inventory a player currently has open. Safe to call from any thread.
+     *
+     * @param playerId The {@link UUID} of the player
+     * @return The open {@link ChestInventory}, or null if the player has none open
+     */
+    @Nullable
+    public ChestInventory getOpenInventory(UUID playerId) {
+        return openInventories.get(playerId);
+    }
+
+    /**
+     * Gets the chest inventory a player currently has open. Safe to call from any thread.
+     *
+     * @param player The {@link Player}
+     * @return The open {@link ChestInventory}, or null if the player has none open
+     */
+    @Nullable
+    public ChestInventory getOpenInventory(Player player) {
+        return openInventories.get(player.getUniqueId());
+    }
+
+    /**
+     * Gets the players currently viewing the given chest inventory. Safe to call from any thread.
+     *
+     * @param gui The {@link ChestInventory} to look up
+     * @return Snapshot of the viewers' {@link UUID}s
+     */
+    public List<UUID> getViewers(ChestInventory gui) {
+        List<UUID> viewers = new ArrayList<>();
+        for (Player player : gui.getViewers()) viewers.add(player.getUniqueId());
+        return viewers;
+    }
+
+    /**
+     * Gets the number of players with an open chest inventory. Safe to call from any thread.
+     *
+     * @return The number of open inventories
+     */
+    public int getOpenCount() {
+        return openInventories.size();
     }
 
     /**
@@ -47,7 +158,13 @@ public class InventoryListener implements Listener {
      * @param player The {@link Player} for whom the inventory is open
      */
     public void register(ChestInventory gui, Player player) {
-        openInventories.put(player.getUniqueId(), gui);
+        ChestInventory previous = openInventories.put(player.getUniqueId(), gui);
+        if (previous != null && previous != gui) {
+            previous.removeViewer(player);
+            previous.released();
+        }
+        gui.addViewer(player);
+        clickLimiter.track(player.getUniqueId());
     }
 
     /**
@@ -56,7 +173,30 @@ public class InventoryListener implements Listener {
      * @param player The {@link Player} whose inventory should be unregistered
      */
     public void unregister(Player player) {
-        openInventories.remove(player.getUniqueId());
+        ChestInventory removed = openInventories.remove(player.getUniqueId());
+        if (removed != null) removed.removeViewer(player);
+    }
+
+    /**
+     * Removes a player's entry, detaches them from the inventory's viewers and discards their pending async clicks.
+     *
+     * @param playerId The {@link UUID} of the player
+     * @param player   The {@link Player}, or null if they are offline
+     * @return The removed {@link ChestInventory}, or null if the player had none open
+     */
+    @Nullable
+    private ChestInventory release(UUID playerId, @Nullable Player player) {
+        ChestInventory removed = openInventories.remove(playerId);
+        if (removed == null) return null;
+
+        if (player != null) removed.removeViewer(player);
+        else removed.removeViewer(playerId);
+        removed.cancelAsyncClicks(playerId);
+        removed.released();
+        removed.callOnFinish(playerId);
+        removed.saveState(playerId);
+        recycle(removed);
+        return removed;
     }
 
     /**
@@ -66,10 +206,16 @@ public class InventoryListener implements Listener {
      */
     @EventHandler
     public void onInventoryClick(InventoryClickEvent event) {
-        ChestInventory chestInventory = InventoryListener.getInstance().getOpenInventories().get(event.getWhoClicked().getUniqueId());
+        ChestInventory chestInventory = openInventories.get(event.getWhoClicked().getUniqueId());
 
         if(chestInventory == null) return;
 
+        if (!clickLimiter.tryAcquire(event.getWhoClicked().getUniqueId(), chestInventory, event.getRawSlot())
+                || chestInventory.isLocked(event.getRawSlot())) {
+            event.setCancelled(true);
+            return;
+        }
+
         chestInventory.callOnGlobalClick(event);
         chestInventory.callOnItemClick(event);
     }
@@ -81,11 +227,11 @@ public class InventoryListener implements Listener {
      */
     @EventHandler
     public void onInventoryDrag(InventoryDragEvent event) {
-        ChestInventory chestInventory = InventoryListener.getInstance().getOpenInventories().get(event.getWhoClicked().getUniqueId());
+        ChestInventory chestInventory = openInventories.get(event.getWhoClicked().getUniqueId());
 
         if(chestInventory == null) return;
 
-        chestInventory.callOnGlobalDrag(event);
+        chestInventory.callOnDrag(event);
     }
 
     /**
@@ -97,10 +243,44 @@ public class InventoryListener implements Listener {
     public void onInventoryClose(InventoryCloseEvent event) {
         if (!(event.getPlayer() instanceof Player player)) return;
 
-        ChestInventory chestInventory = openInventories.get(player.getUniqueId());
+        ChestInventory chestInventory = openInventories.remove(player.getUniqueId());
         if (chestInventory == null) return;
 
-        unregister(player);
+        chestInventory.removeViewer(player);
+        chestInventory.cancelAsyncClicks(player.getUniqueId());
+        chestInventory.released();
+
+        // A parent suspended onto the navigation history stays alive as it is
+        Navigator navigator = Navigator.getInstance();
+        if (navigator != null && navigator.isSuspending(player.getUniqueId()) && event.getReason() == InventoryCloseEvent.Reason.OPEN_NEW) return;
+
         chestInventory.callOnClose(event);
+        chestInventory.callOnFinish(player.getUniqueId());
+        chestInventory.saveState(player.getUniqueId());
+        recycle(chestInventory);
+
+        if (navigator != null && !navigator.isNavigating(player.getUniqueId())) navigator.clear(player.getUniqueId());
+    }
+
+    /**
+     * Returns a pooled inventory to its {@link InventoryPool} once its last viewer left.
+     *
+     * @param chestInventory The {@link ChestInventory} a player left
+     */
+    private void recycle(ChestInventory chestInventory) {
+        InventoryPool pool = InventoryPool.getInstance();
+        if (pool != null && chestInventory.getPoolKey() != null) pool.release(chestInventory);
+    }
+
+    /**
+     * Cleans up after players leaving the server, including kicks, even if no close event fired.
+     *
+     * @param event The {@link PlayerQuitEvent} triggered by the player leaving
+     */
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        release(event.getPlayer().getUniqueId(), event.getPlayer());
+        clickLimiter.release(event.getPlayer().getUniqueId());
+        if (Navigator.getInstance() != null) Navigator.getInstance().clear(event.getPlayer().getUniqueId());
     }
 }
@@ -0,0 +1,193 @@
+package de.ztiger.IF.inventory;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.bukkit.plugin.Plugin;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Recycles chest inventories of frequently reopened menus instead of building them again.
+ * <p>
+ * Inventories are pooled by a key identifying their definition, for example the menu template they were
+ * built from. When a pooled inventory is closed by its last viewer it is reset to the state it had when it
+ * was built and kept for the next {@link #acquire(Object, Supplier)} of the same key. Only accessed on the main thread.
+ */
+public class InventoryPool {
+
+    /**
+     * Default number of idle inventories kept per key.
+     */
+    public static final int DEFAULT_MAX_IDLE = 8;
+
+    /**
+     * Default time after which an idle inventory is dropped, in milliseconds.
+     */
+    public static final long DEFAULT_IDLE_TIMEOUT = 60_000L;
+
+    /**
+     * Interval of the idle eviction, in ticks.
+     */
+    public static final long EVICT_INTERVAL = 200L;
+
+    /**
+     * Singleton instance of the InventoryPool.
+     */
+    @Getter
+    private static volatile InventoryPool instance;
+
+    /**
+     * Idle inventories by key, the most recently released last.
+     */
+    private final Map<Object, Deque<Idle>> idle = new HashMap<>();
+
+    /**
+     * Every idle inventory, so an inventory released twice is only queued once.
+     */
+    private final Set<ChestInventory> idleInventories = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Maximum number of idle inventories kept per key.
+     */
+    @Getter
+    @Setter
+    private int maxIdle = DEFAULT_MAX_IDLE;
+
+    /**
+     * Time after which an idle inventory is dropped, in nanoseconds.
+     */
+    private long idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_IDLE_TIMEOUT);
+
+    /**
+     * Number of inventories built because the pool had none for the key.
+     */
+    @Getter
+    private long created;
+
+    /**
+     * Number of acquisitions served from the pool.
+     */
+    @Getter
+    private long reused;
+
+    /**
+     * Initializes the InventoryPool and starts the idle eviction.
+     *
+     * @param plugin The {@link Plugin} scheduling the eviction
+     */
+    public static void init(Plugin plugin) {
+        instance = new InventoryPool();
+        plugin.getServer().getScheduler().runTaskTimer(plugin, instance::evictIdle, EVICT_INTERVAL, EVICT_INTERVAL);
+    }
+
+    /**
+     * Sets the time after which an idle inventory is dropped.
+     *
+     * @param millis Idle timeout in milliseconds
+     */
+    public void setIdleTimeout(long millis) {
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    /**
+     * Takes an idle inventory of the given key, or builds a new one if there is none.
+     * The inventory is returned to the pool when its last viewer closes it.
+     *
+     * @param key     Key identifying the inventory's definition, with proper equals and hashCode
+     * @param factory Supplier building a new inventory of the definition
+     * @return A {@link ChestInventory} without viewers
+     */
+    public ChestInventory acquire(Object key, Supplier<ChestInventory> factory) {
+        Deque<Idle> queue = idle.get(key);
+        Idle entry = queue == null ? null : queue.pollLast();
+
+        if (entry != null) {
+            idleInventories.remove(entry.inventory);
+            reused++;
+            return entry.inventory;
+        }
+
+        ChestInventory chestInventory = factory.get();
+        chestInventory.pool(key);
+        created++;
+        return chestInventory;
+    }
+
+    /**
+     * Resets a pooled inventory and keeps it for reuse, or drops it if its key already has enough idle inventories.
+     * Releasing an inventory that is already idle, for example from both its close and the stale entry sweep, is ignored.
+     *
+     * @param chestInventory The closed {@link ChestInventory}
+     */
+    void release(ChestInventory chestInventory) {
+        Object key = chestInventory.getPoolKey();
+        if (key == null || chestInventory.hasViewers() || idleInventories.contains(chestInventory)) return;
+
+        Deque<Idle> queue = idle.computeIfAbsent(key, k -> new ArrayDeque<>());
+        if (queue.size() >= maxIdle) return;
+
+        idleInventories.add(chestInventory);
+        chestInventory.recycle();
+        queue.addLast(new Idle(chestInventory, System.nanoTime()));
+    }
+
+    /**
+     * Drops the inventories that have been idle longer than the idle timeout.
+     *
+     * @return The number of dropped inventories
+     */
+    public int evictIdle() {
+        long deadline = System.nanoTime() - idleTimeoutNanos;
+        int evicted = 0;
+
+        for (Iterator<Deque<Idle>> queues = idle.values().iterator(); queues.hasNext(); ) {
+            Deque<Idle> queue = queues.next();
+
+            while (!queue.isEmpty() && queue.peekFirst().since - deadline < 0) {
+                idleInventories.remove(queue.pollFirst().inventory);
+                evicted++;
+            }
+
+            if (queue.isEmpty()) queues.remove();
+        }
+
+        return evicted;
+    }
+
+    /**
+     * Gets the number of idle inventories over all keys.
+     *
+     * @return The number of idle inventories
+     */
+    public int getIdleCount() {
+        int count = 0;
+        for (Deque<Idle> queue : idle.values()) count += queue.size();
+        return count;
+    }
+
+    /**
+     * Drops every idle inventory.
+     */
+    public void clear() {
+        idle.clear();
+        idleInventories.clear();
+    }
+
+    /**
+     * An idle inventory.
+     *
+     * @param inventory The pooled {@link ChestInventory}
+     * @param since     {@link System#nanoTime()} when it was released
+     */
+    private record Idle(ChestInventory inventory, long since) {
+    }
+}
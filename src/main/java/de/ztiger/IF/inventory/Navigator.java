@@ -0,0 +1,318 @@
+package de.ztiger.IF.inventory;
+
+import lombok.Getter;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-player navigation history between chest inventories.
+ * <p>
+ * Opening a child menu through {@link #open(Player, ChestInventory)} keeps the current inventory alive on the
+ * player's history stack, with its panes and pages as they are. Switching to the child is not treated as a
+ * close: the parent's close handler does not run, its state is not saved and it is not recycled. A parent
+ * leaving the history without being shown again is finished through its finish handler instead.
+ * {@link #back(Player)} shows the parent again as it was left. The history ends when the player closes the
+ * menu or leaves, and is bounded by a maximum depth per player, a maximum number of suspended inventories over
+ * all players and a maximum age. Only accessed on the main thread.
+ */
+public class Navigator {
+
+    /**
+     * Default maximum number of parents kept per player.
+     */
+    public static final int DEFAULT_MAX_DEPTH = 8;
+
+    /**
+     * Default maximum number of parents kept over all players.
+     */
+    public static final int DEFAULT_MAX_SUSPENDED = 256;
+
+    /**
+     * Default time after which a parent is dropped from the history, in milliseconds.
+     */
+    public static final long DEFAULT_MAX_AGE = 300_000L;
+
+    /**
+     * Interval of the age eviction, in ticks.
+     */
+    public static final long EVICT_INTERVAL = 200L;
+
+    /**
+     * Singleton instance of the Navigator.
+     */
+    @Getter
+    private static volatile Navigator instance;
+
+    /**
+     * History stacks by player {@link UUID}, the most recent parent last.
+     */
+    private final Map<UUID, Deque<Entry>> histories = new HashMap<>();
+
+    /**
+     * Players whose current inventory is being suspended onto the history.
+     */
+    private final Set<UUID> suspending = new HashSet<>();
+
+    /**
+     * Players currently switching inventories through the navigator.
+     */
+    private final Set<UUID> navigating = new HashSet<>();
+
+    /**
+     * Number of parents kept over all players.
+     */
+    @Getter
+    private int suspendedCount;
+
+    /**
+     * Maximum number of parents kept per player. Older parents are dropped when exceeded.
+     */
+    @Getter
+    private int maxDepth = DEFAULT_MAX_DEPTH;
+
+    /**
+     * Maximum number of parents kept over all players. The oldest parents are dropped when exceeded.
+     */
+    @Getter
+    private int maxSuspended = DEFAULT_MAX_SUSPENDED;
+
+    /**
+     * Time after which a parent is dropped from the history, in nanoseconds.
+     */
+    private long maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_MAX_AGE);
+
+    /**
+     * Initializes the Navigator and starts the age eviction.
+     *
+     * @param plugin The {@link Plugin} scheduling the eviction
+     */
+    public static void init(Plugin plugin) {
+        instance = new Navigator();
+        plugin.getServer().getScheduler().runTaskTimer(plugin, instance::evictExpired, EVICT_INTERVAL, EVICT_INTERVAL);
+    }
+
+    /**
+     * Sets the maximum number of parents kept per player and trims the existing histories.
+     *
+     * @param maxDepth Maximum depth of a history
+     */
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = Math.max(0, maxDepth);
+
+        for (Iterator<Map.Entry<UUID, Deque<Entry>>> iterator = histories.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<UUID, Deque<Entry>> history = iterator.next();
+            while (history.getValue().size() > this.maxDepth) drop(history.getKey(), history.getValue().pollFirst());
+            if (history.getValue().isEmpty()) iterator.remove();
+        }
+    }
+
+    /**
+     * Sets the maximum number of parents kept over all players and drops the oldest ones above it.
+     *
+     * @param maxSuspended Maximum number of suspended inventories
+     */
+    public void setMaxSuspended(int maxSuspended) {
+        this.maxSuspended = Math.max(0, maxSuspended);
+        dropOldest();
+    }
+
+    /**
+     * Sets the time after which a parent is dropped from the history.
+     *
+     * @param millis Maximum age in milliseconds
+     */
+    public void setMaxAge(long millis) {
+        this.maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    /**
+     * Opens a child inventory, keeping the player's current chest inventory on their history.
+     * If the player has no chest inventory open, the child is simply opened.
+     *
+     * @param player The {@link Player}
+     * @param child  The {@link ChestInventory} to open
+     */
+    public void open(Player player, ChestInventory child) {
+        UUID playerId = player.getUniqueId();
+        ChestInventory current = InventoryListener.getInstance().getOpenInventory(playerId);
+
+        if (current == null || current == child) {
+            child.open(player);
+            return;
+        }
+
+        Deque<Entry> history = histories.computeIfAbsent(playerId, id -> new ArrayDeque<>());
+        history.addLast(new Entry(current, System.nanoTime()));
+        suspendedCount++;
+        while (history.size() > maxDepth) drop(playerId, history.pollFirst());
+        if (history.isEmpty()) histories.remove(playerId);
+        dropOldest();
+
+        navigating.add(playerId);
+        suspending.add(playerId);
+        try {
+            child.open(player);
+        } finally {
+            suspending.remove(playerId);
+            navigating.remove(playerId);
+        }
+    }
+
+    /**
+     * Closes the current inventory and shows the previous one as the player left it.
+     *
+     * @param player The {@link Player}
+     * @return True if there was a previous inventory to go back to
+     */
+    public boolean back(Player player) {
+        UUID playerId = player.getUniqueId();
+        Deque<Entry> history = histories.get(playerId);
+        Entry parent = history == null ? null : history.pollLast();
+        if (parent == null) return false;
+        if (history.isEmpty()) histories.remove(playerId);
+        suspendedCount--;
+
+        navigating.add(playerId);
+        try {
+            parent.inventory.show(player);
+        } finally {
+            navigating.remove(playerId);
+        }
+        return true;
+    }
+
+    /**
+     * Gets the number of inventories the player can go back to.
+     *
+     * @param playerId The {@link UUID} of the player
+     * @return The depth of the history
+     */
+    public int getDepth(UUID playerId) {
+        Deque<Entry> history = histories.get(playerId);
+        return history == null ? 0 : history.size();
+    }
+
+    /**
+     * Gets the inventory {@link #back(Player)} would show.
+     *
+     * @param playerId The {@link UUID} of the player
+     * @return The previous {@link ChestInventory}, or null if the history is empty
+     */
+    @Nullable
+    public ChestInventory peek(UUID playerId) {
+        Deque<Entry> history = histories.get(playerId);
+        Entry parent = history == null ? null : history.peekLast();
+        return parent == null ? null : parent.inventory;
+    }
+
+    /**
+     * Drops the player's history, finishing every parent like a closed inventory.
+     *
+     * @param playerId The {@link UUID} of the player
+     */
+    public void clear(UUID playerId) {
+        Deque<Entry> history = histories.remove(playerId);
+        if (history == null) return;
+
+        for (Entry entry; (entry = history.pollLast()) != null; ) drop(playerId, entry);
+    }
+
+    /**
+     * Drops the parents that have been on a history longer than the maximum age.
+     *
+     * @return The number of dropped parents
+     */
+    public int evictExpired() {
+        long deadline = System.nanoTime() - maxAgeNanos;
+        int evicted = 0;
+
+        for (Iterator<Map.Entry<UUID, Deque<Entry>>> iterator = histories.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<UUID, Deque<Entry>> history = iterator.next();
+            Deque<Entry> entries = history.getValue();
+
+            while (!entries.isEmpty() && entries.peekFirst().since - deadline < 0) {
+                drop(history.getKey(), entries.pollFirst());
+                evicted++;
+            }
+
+            if (entries.isEmpty()) iterator.remove();
+        }
+
+        return evicted;
+    }
+
+    /**
+     * Drops the oldest parents over all players while more than {@link #maxSuspended} are kept.
+     */
+    private void dropOldest() {
+        while (suspendedCount > maxSuspended) {
+            Map.Entry<UUID, Deque<Entry>> oldest = null;
+            for (Map.Entry<UUID, Deque<Entry>> history : histories.entrySet()) {
+                if (history.getValue().isEmpty()) continue;
+                if (oldest == null || history.getValue().peekFirst().since - oldest.getValue().peekFirst().since < 0) oldest = history;
+            }
+            if (oldest == null) return;
+
+            drop(oldest.getKey(), oldest.getValue().pollFirst());
+            if (oldest.getValue().isEmpty()) histories.remove(oldest.getKey());
+        }
+    }
+
+    /**
+     * Checks whether the player's current inventory is being suspended onto the history,
+     * in which case its close must not be handled as a regular close.
+     *
+     * @param playerId The {@link UUID} of the player
+     * @return True while a child is being opened through the navigator
+     */
+    boolean isSuspending(UUID playerId) {
+        return suspending.contains(playerId);
+    }
+
+    /**
+     * Checks whether the player is switching inventories through the navigator,
+     * in which case their history must be kept.
+     *
+     * @param playerId The {@link UUID} of the player
+     * @return True while the navigator opens an inventory for the player
+     */
+    boolean isNavigating(UUID playerId) {
+        return navigating.contains(playerId);
+    }
+
+    /**
+     * Finishes a parent leaving the history: runs its finish handler, saves its state and returns it to its pool.
+     * The player is no longer looking at the parent, so there is no close event for its close handler.
+     *
+     * @param playerId The {@link UUID} of the player the entry belongs to
+     * @param entry    The dropped {@link Entry}
+     */
+    private void drop(UUID playerId, Entry entry) {
+        suspendedCount--;
+        entry.inventory.callOnFinish(playerId);
+        entry.inventory.saveState(playerId);
+
+        InventoryPool pool = InventoryPool.getInstance();
+        if (pool != null && entry.inventory.getPoolKey() != null) pool.release(entry.inventory);
+    }
+
+    /**
+     * A parent inventory on a history.
+     *
+     * @param inventory The suspended {@link ChestInventory}
+     * @param since     {@link System#nanoTime()} when it was suspended
+     */
+    private record Entry(ChestInventory inventory, long since) {
+    }
+}
@@ -0,0 +1,108 @@
+package de.ztiger.IF.inventory;
+
+import lombok.Getter;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * Base of the panes showing one of several pages at a time.
+ * Subclasses decide where the pages come from, for example a list of added panes in a {@link PaginatedPane}
+ * or a provider in a {@link VirtualPaginatedPane}.
+ */
+public abstract class PagedPane extends Pane {
+
+    /**
+     * The current page number (0-indexed).
+     * Defaults to 0.
+     */
+    @Getter
+    protected int page = 0;
+
+    /**
+     * Switches to the given page and refreshes the slots of the previous and the new page.
+     *
+     * @param page The page index (0-indexed)
+     * @throws IndexOutOfBoundsException If the page does not exist
+     */
+    protected void setPage(int page) {
+        if (page < 0 || page >= getPageCount()) {
+            throw new IndexOutOfBoundsException("Page index out of bounds: " + page);
+        }
+
+        long previousMask = getSlotMask();
+        this.page = page;
+
+        if (this.chestInventory != null) {
+            this.chestInventory.refreshSlots(previousMask | getSlotMask());
+        }
+    }
+
+    /**
+     * Gets the number of pages.
+     *
+     * @return The number of pages
+     */
+    public abstract int getPageCount();
+
+    /**
+     * Gets the pane of the current page.
+     *
+     * @return The current page's {@link Pane}, or null if the pages are not backed by panes or there are none
+     */
+    @Nullable
+    protected abstract Pane getCurrentPane();
+
+    /**
+     * Navigates to the next page.
+     */
+    public void nextPage() {
+        if (page < getPageCount() - 1) setPage(page + 1);
+    }
+
+    /**
+     * Navigates to the previous page.
+     */
+    public void previousPage() {
+        if (page > 0) setPage(page - 1);
+    }
+
+    @Override
+    public long getSlotMask() {
+        Pane current = getCurrentPane();
+        return current == null ? 0 : current.getSlotMask();
+    }
+
+    @Override
+    public InventoryItem getItem(int position) {
+        Pane current = getCurrentPane();
+        return current == null ? null : current.getItem(position);
+    }
+
+    /**
+     * Validates the positions filled on every page.
+     *
+     * @param layout Positions (slot + row * 9)
+     * @return A copy of the layout
+     * @throws IllegalArgumentException  If the layout is empty or contains a position twice
+     * @throws IndexOutOfBoundsException If a position is outside the inventory
+     */
+    protected static int[] checkLayout(int[] layout) {
+        if (layout.length == 0) {
+            throw new IllegalArgumentException("Layout must contain at least one position");
+        }
+
+        long seen = 0;
+        for (int position : layout) {
+            if (position < 0 || position >= MAX_SLOTS) {
+                throw new IndexOutOfBoundsException("Position out of bounds: " + position);
+            }
+            if ((seen & (1L << position)) != 0) {
+                throw new IllegalArgumentException("Layout contains position " + position + " twice");
+            }
+            seen |= 1L << position;
+        }
+
+        return Arrays.copyOf(layout, layout.length);
+    }
+}
@@ -3,20 +3,13 @@ package de.ztiger.IF.inventory;
 import lombok.Getter;
 import lombok.Setter;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 
 @Getter
 @Setter
-public class PaginatedPane extends Pane {
-
-    /**
-     * The current page number (0-indexed).
-     * Defaults to 0.
-     */
-    protected int page = 0;
+public class PaginatedPane extends PagedPane {
 
     /**
      * The list of panes for each page.
@@ -35,38 +28,26 @@ public class PaginatedPane extends Pane {
         }
     }
 
-    protected void setPage(int page) {
-        if (page < 0 || page >= pages.size()) {
-            throw new IndexOutOfBoundsException("Page index out of bounds: " + page);
-        }
-
-        if (this.chestInventory != null) {
-            this.chestInventory.disablePane(this);
-
-            this.page = page;
-
-            this.chestInventory.updateByPane(this);
-        }
-    }
-
     /**
-     * Navigates to the next page in the paginated pane.
+     * Gets the number of pages in the paginated pane.
+     *
+     * @return The number of pages
      */
-    public void nextPage() {
-        if (page < pages.size() - 1) setPage(page + 1);
+    @Override
+    public int getPageCount() {
+        return pages.size();
     }
 
     /**
-     * Navigates to the previous page in the paginated pane.
+     * Gets the pane of the current page.
+     *
+     * @return The current page's {@link Pane}, or null if there are no pages
      */
-    public void previousPage() {
-        if (page > 0) setPage(page - 1);
-    }
-
+    @Nullable
     @Override
-    public Map<Integer, InventoryItem> getInventoryItems() {
-        if (pages.isEmpty()) return Collections.emptyMap();
-        return pages.get(page).getInventoryItems();
+    protected Pane getCurrentPane() {
+        if (pages.isEmpty()) return null;
+        return pages.get(page);
     }
 
     @Override
@@ -75,8 +56,32 @@ public class PaginatedPane extends Pane {
         for (Pane p : pages) {
             p.setChestInventory(chestInventory);
         }
-        if (chestInventory != null) {
-            chestInventory.updateByPane(this);
+    }
+
+    @Override
+    Contents captureContents() {
+        List<Contents> pageContents = new ArrayList<>(pages.size());
+        for (Pane p : pages) pageContents.add(p.captureContents());
+
+        return new Contents(inventoryItems.clone(), slotMask, List.copyOf(pages), pageContents);
+    }
+
+    @Override
+    void restoreContents(Contents contents) {
+        super.restoreContents(contents);
+
+        for (Pane p : pages) {
+            if (!contents.pages().contains(p)) p.setChestInventory(null);
+        }
+
+        pages.clear();
+        pages.addAll(contents.pages());
+        for (int i = 0; i < pages.size(); i++) {
+            Pane p = pages.get(i);
+            p.setChestInventory(chestInventory);
+            p.restoreContents(contents.pageContents().get(i));
         }
+
+        if (page >= getPageCount()) page = Math.max(0, getPageCount() - 1);
     }
 }
@@ -1,17 +1,29 @@
 package de.ztiger.IF.inventory;
 
+import de.ztiger.IF.data.ObservableValue;
 import de.ztiger.IF.data.Pattern;
-import de.ztiger.IF.util.ItemBuilder;
+import de.ztiger.IF.util.HeadCache;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import net.kyori.adventure.text.Component;
-import org.bukkit.Material;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
 import org.bukkit.inventory.ItemStack;
 
 import javax.annotation.Nullable;
-import java.util.HashMap;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @NoArgsConstructor
 public class Pane {
@@ -20,6 +32,11 @@ public class Pane {
     private static final String backTextureUrl = "bd69e06e5dadfd84e5f3d1c21063f2553b2fa945ee1d4d7152fdc5425bc12a9";
     private static final String nextTextureUrl = "19bf3292e126a105b54eba713aa1b152d541a1d8938829c56364d178ed22bf";
 
+    /**
+     * Maximum number of positions a pane can hold (a six-row chest).
+     */
+    public static final int MAX_SLOTS = 54;
+
     /**
      * Visibility of the pane in the chest inventory.
      */
@@ -27,9 +44,30 @@ public class Pane {
     protected boolean isVisible = true;
 
     /**
-     * Map of positions to inventory items in the pane.
+     * Inventory items in the pane, indexed by position.
+     */
+    protected final InventoryItem[] inventoryItems = new InventoryItem[MAX_SLOTS];
+
+    /**
+     * Bitset of the positions occupied in {@link #inventoryItems}.
+     */
+    protected long slotMask;
+
+    /**
+     * Read-only map view of the occupied positions.
      */
-    protected final HashMap<Integer, InventoryItem> inventoryItems = new HashMap<>();
+    private final Map<Integer, InventoryItem> inventoryItemsView = new SlotMapView();
+
+    /**
+     * Regions of the pane accepting item drags.
+     */
+    protected final List<DragRegion> dragRegions = new ArrayList<>();
+
+    /**
+     * Union of the masks of {@link #dragRegions}.
+     */
+    @Getter
+    protected long dragMask;
 
     /**
      * Reference to the parent chest inventory, if any.
@@ -40,12 +78,44 @@ public class Pane {
 
 
     /**
-     * Gets the map of inventory items in the pane.
+     * Gets a read-only view of the inventory items in the pane.
+     * Prefer {@link #getSlotMask()} and {@link #getItem(int)} on hot paths.
      *
      * @return Map of positions to {@link InventoryItem}s
      */
     public Map<Integer, InventoryItem> getInventoryItems() {
-        return inventoryItems;
+        return inventoryItemsView;
+    }
+
+    /**
+     * Gets the bitset of occupied positions, bit {@code n} standing for position {@code n}.
+     *
+     * @return The occupied positions
+     */
+    public long getSlotMask() {
+        return slotMask;
+    }
+
+    /**
+     * Gets the item at the given inventory position.
+     *
+     * @param position Position in the inventory (slot + row * 9)
+     * @return The {@link InventoryItem} at the position, or null if there is none
+     */
+    @Nullable
+    public InventoryItem getItem(int position) {
+        if (position < 0 || position >= MAX_SLOTS) return null;
+        return inventoryItems[position];
+    }
+
+    /**
+     * Checks whether the given position holds an item.
+     *
+     * @param position Position in the inventory (slot + row * 9)
+     * @return True if the position is occupied
+     */
+    protected boolean isOccupied(int position) {
+        return position >= 0 && position < MAX_SLOTS && (slotMask & (1L << position)) != 0;
     }
 
     /**
@@ -56,27 +126,174 @@ public class Pane {
      * @param item The {@link InventoryItem} to add
      */
     public void addItem(int slot, int row, InventoryItem item) {
-        this.inventoryItems.put(slot + (row * 9), item);
+        int position = slot + (row * 9);
+        if (position < 0 || position >= MAX_SLOTS) {
+            throw new IndexOutOfBoundsException("Position out of bounds: " + position);
+        }
+
+        this.inventoryItems[position] = item;
+        this.slotMask |= 1L << position;
+
+        if (chestInventory != null) {
+            chestInventory.refreshSlot(position);
+        }
+    }
+
+    /**
+     * Places an item at the given position and refreshes the slot if the pane is shown in an inventory.
+     *
+     * @param position Position in the inventory (slot + row * 9)
+     * @param item     The {@link InventoryItem} to place
+     */
+    void replaceItem(int position, InventoryItem item) {
+        addItem(position % 9, position / 9, item);
+    }
+
+    /**
+     * Places an item at the given position without refreshing the slot,
+     * for panes that are not shown, such as hidden pages of a {@link PaginatedPane}.
+     *
+     * @param position Position in the inventory (slot + row * 9)
+     * @param item     The {@link InventoryItem} to place
+     */
+    void storeItem(int position, InventoryItem item) {
+        this.inventoryItems[position] = item;
+        this.slotMask |= 1L << position;
+    }
+
+    /**
+     * Captures the items of the pane, so they can be reset with {@link #restoreContents(Contents)}.
+     *
+     * @return The captured {@link Contents}
+     */
+    Contents captureContents() {
+        return new Contents(inventoryItems.clone(), slotMask, List.of(), List.of());
+    }
+
+    /**
+     * Resets the items of the pane to captured contents without refreshing any slot.
+     *
+     * @param contents The {@link Contents} captured from this pane
+     */
+    void restoreContents(Contents contents) {
+        System.arraycopy(contents.items(), 0, inventoryItems, 0, MAX_SLOTS);
+        this.slotMask = contents.slotMask();
+    }
+
+    /**
+     * Binds the item at the given slot and row to a supplier evaluated every given number of ticks
+     * while the inventory is viewed. The slot is only re-rendered when the supplied stack changes.
+     *
+     * @param slot     Slot number (0-indexed)
+     * @param row      Row number (0-indexed)
+     * @param supplier Supplier of the current {@link ItemStack}
+     * @param interval Number of ticks between evaluations
+     * @param onClick  Consumer handling click events on the item, or null
+     */
+    public void bindItem(int slot, int row, Supplier<ItemStack> supplier, long interval, @Nullable Consumer<InventoryClickEvent> onClick) {
+        addItem(slot, row, new BoundInventoryItem(supplier, interval, onClick));
+    }
+
+    /**
+     * Binds the item at the given slot and row to an observable value.
+     * The slot is only re-rendered after the value changed.
+     *
+     * @param slot     Slot number (0-indexed)
+     * @param row      Row number (0-indexed)
+     * @param value    The {@link ObservableValue} to observe
+     * @param renderer Function rendering the value into an {@link ItemStack}
+     * @param onClick  Consumer handling click events on the item, or null
+     * @param <T>      Type of the value
+     */
+    public <T> void bindItem(int slot, int row, ObservableValue<T> value, Function<T, ItemStack> renderer, @Nullable Consumer<InventoryClickEvent> onClick) {
+        addItem(slot, row, BoundInventoryItem.of(value, renderer, onClick));
     }
 
     /**
      * Creates a pattern in the pane using the given item map and pattern.
+     * Every distinct character of the pattern is looked up once and its positions are filled in bulk.
      *
      * @param itemMap A map of numbers in the pattern to InventoryItems
      * @param pattern The {@link Pattern} to create
      */
     public void createPattern(Map<Character, InventoryItem> itemMap, Pattern pattern) {
-        int[][] pat = pattern.getPattern();
-        for (int row = 0; row < pat.length; row++) {
-            for (int slot = 0; slot < pat[row].length; slot++) {
-                char key = (char) pat[row][slot];
-                if (itemMap.containsKey(key)) addItem(slot, row, itemMap.get(key));
-            }
+        for (int i = 0; i < pattern.getKeyCount(); i++) {
+            InventoryItem item = itemMap.get(pattern.getKey(i));
+            if (item != null) fill(pattern.getKeyMask(i), item);
         }
     }
 
+    /**
+     * Fills every position of the given character in the pattern with an item.
+     *
+     * @param pattern The {@link Pattern} to read
+     * @param key     The character to fill
+     * @param item    The {@link InventoryItem} to place
+     */
+    public void createPattern(Pattern pattern, char key, InventoryItem item) {
+        fill(pattern.getMask(key), item);
+    }
+
+    /**
+     * Places an item at every position of the given bitset.
+     *
+     * @param mask Bitset of positions, bit {@code n} standing for position {@code n}
+     * @param item The {@link InventoryItem} to place
+     */
+    public void fill(long mask, InventoryItem item) {
+        if ((mask >>> MAX_SLOTS) != 0) {
+            throw new IndexOutOfBoundsException("Mask covers positions beyond " + (MAX_SLOTS - 1));
+        }
+
+        for (long bits = mask; bits != 0; bits &= bits - 1) {
+            this.inventoryItems[Long.numberOfTrailingZeros(bits)] = item;
+        }
+        this.slotMask |= mask;
+
+        if (chestInventory != null) {
+            chestInventory.refreshSlots(mask);
+        }
+    }
+
+    /**
+     * Declares a region of positions accepting item drags. As soon as a visible pane of an inventory declares
+     * a region, drags touching any top inventory slot outside all regions are cancelled before user code runs.
+     *
+     * @param mask    Bitset of positions, bit {@code n} standing for position {@code n}
+     * @param handler Handler called for drags touching the region, or null to only allow them
+     */
+    public void addDragRegion(long mask, @Nullable DragHandler handler) {
+        if ((mask >>> MAX_SLOTS) != 0) {
+            throw new IndexOutOfBoundsException("Mask covers positions beyond " + (MAX_SLOTS - 1));
+        }
+
+        this.dragRegions.add(new DragRegion(mask, handler));
+        this.dragMask |= mask;
+    }
+
+    /**
+     * Declares every position of the given character in the pattern as a region accepting item drags.
+     *
+     * @param pattern The {@link Pattern} to read
+     * @param key     The character marking the region
+     * @param handler Handler called for drags touching the region, or null to only allow them
+     */
+    public void addDragRegion(Pattern pattern, char key, @Nullable DragHandler handler) {
+        addDragRegion(pattern.getMask(key), handler);
+    }
+
+    /**
+     * Gets the drag regions declared on the pane.
+     *
+     * @return Unmodifiable list of {@link DragRegion}s
+     */
+    public List<DragRegion> getDragRegions() {
+        return Collections.unmodifiableList(dragRegions);
+    }
+
     /**
      * Updates an existing item in the pane at the given slot and row.
+     * If the pane is attached to an inventory, the slot's dispatch entry is refreshed right away.
      *
      * @param slot Slot number (0-indexed)
      * @param row  Row number (0-indexed)
@@ -84,8 +301,12 @@ public class Pane {
      */
     public void updateItem(int slot, int row, InventoryItem item) {
         int pos = slot + (row * 9);
-        if (this.inventoryItems.containsKey(pos)) {
-            this.inventoryItems.put(pos, item);
+        if (isOccupied(pos)) {
+            this.inventoryItems[pos] = item;
+
+            if (chestInventory != null) {
+                chestInventory.refreshSlot(pos);
+            }
         }
     }
 
@@ -98,13 +319,13 @@ public class Pane {
      */
     public void updateItemStack(int slot, int row, ItemStack itemStack) {
         int position = slot + (row * 9);
-        if (this.inventoryItems.containsKey(position)) {
-            InventoryItem existingItem = this.inventoryItems.get(position);
+        if (isOccupied(position)) {
+            InventoryItem existingItem = this.inventoryItems[position];
             InventoryItem updatedItem = new InventoryItem(itemStack, existingItem.getOnClick());
-            this.inventoryItems.put(position, updatedItem);
+            this.inventoryItems[position] = updatedItem;
 
             if (chestInventory != null) {
-                chestInventory.updateItem(position, updatedItem);
+                chestInventory.refreshSlot(position);
             }
         }
     }
@@ -115,11 +336,11 @@ public class Pane {
      * @param visible True to show the pane, false to hide it
      */
     public void setVisible(boolean visible) {
+        this.isVisible = visible;
+
         if (chestInventory != null) {
             if (visible) chestInventory.updateByPane(this);
             else chestInventory.disablePane(this);
-
-            this.isVisible = visible;
         }
     }
 
@@ -128,18 +349,29 @@ public class Pane {
      *
      * @param backItem      The {@link PaginationItem} for going back a page
      * @param nextItem      The {@link PaginationItem} for going to the next page
-     * @param paginatedPane The {@link PaginatedPane} to control
+     * @param paginatedPane The {@link PagedPane} to control
      */
-    public void addPaginationItems(PaginationItem backItem, PaginationItem nextItem, PaginatedPane paginatedPane) {
+    public void addPaginationItems(PaginationItem backItem, PaginationItem nextItem, PagedPane paginatedPane) {
         if (backItem != null) {
-            this.addItem(backItem.slot, backItem.row, new InventoryItem(new ItemBuilder(Material.PLAYER_HEAD).setCustomTexture(backTextureUrl).setName(backItem.name).build(), event -> paginatedPane.previousPage()));
+            this.addItem(backItem.slot, backItem.row, new InventoryItem(HeadCache.get(backTextureUrl, backItem.name, null), event -> paginatedPane.previousPage()));
         }
 
         if (nextItem != null) {
-            this.addItem(nextItem.slot, nextItem.row, new InventoryItem(new ItemBuilder(Material.PLAYER_HEAD).setCustomTexture(nextTextureUrl).setName(nextItem.name).build(), event -> paginatedPane.nextPage()));
+            this.addItem(nextItem.slot, nextItem.row, new InventoryItem(HeadCache.get(nextTextureUrl, nextItem.name, null), event -> paginatedPane.nextPage()));
         }
     }
 
+    /**
+     * Items of a pane captured by {@link #captureContents()}.
+     *
+     * @param items        The item at every position
+     * @param slotMask     Bitset of the occupied positions
+     * @param pages        The pages of a {@link PaginatedPane}, empty for other panes
+     * @param pageContents The captured contents of every page
+     */
+    record Contents(InventoryItem[] items, long slotMask, List<Pane> pages, List<Contents> pageContents) {
+    }
+
     /**
      * Pagination item record.
      *
@@ -149,4 +381,80 @@ public class Pane {
      */
     public record PaginationItem(int slot, int row, Component name) {
     }
+
+    /**
+     * Region of positions accepting item drags.
+     *
+     * @param mask    Bitset of positions, bit {@code n} standing for position {@code n}
+     * @param handler Handler called for drags touching the region, or null
+     */
+    public record DragRegion(long mask, @Nullable DragHandler handler) {
+    }
+
+    /**
+     * Handles a drag touching a {@link DragRegion}.
+     */
+    @FunctionalInterface
+    public interface DragHandler {
+
+        /**
+         * Called when an allowed drag touches the region.
+         *
+         * @param event The {@link InventoryDragEvent}
+         * @param slots Bitset of the dragged positions inside the region
+         */
+        void onDrag(InventoryDragEvent event, long slots);
+    }
+
+    /**
+     * Read-only map view over {@link #getSlotMask()} and {@link #getItem(int)}.
+     */
+    private class SlotMapView extends AbstractMap<Integer, InventoryItem> {
+
+        @Override
+        public InventoryItem get(Object key) {
+            return key instanceof Integer position ? getItem(position) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Integer position && position >= 0 && position < MAX_SLOTS
+                    && (getSlotMask() & (1L << position)) != 0;
+        }
+
+        @Override
+        public int size() {
+            return Long.bitCount(getSlotMask());
+        }
+
+        @Override
+        public Set<Entry<Integer, InventoryItem>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<Integer, InventoryItem>> iterator() {
+                    return new Iterator<>() {
+                        private long remaining = getSlotMask();
+
+                        @Override
+                        public boolean hasNext() {
+                            return remaining != 0;
+                        }
+
+                        @Override
+                        public Entry<Integer, InventoryItem> next() {
+                            if (remaining == 0) throw new NoSuchElementException();
+                            int position = Long.numberOfTrailingZeros(remaining);
+                            remaining &= remaining - 1;
+                            return new SimpleImmutableEntry<>(position, getItem(position));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return SlotMapView.this.size();
+                }
+            };
+        }
+    }
 }
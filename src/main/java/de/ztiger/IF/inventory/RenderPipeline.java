@@ -0,0 +1,415 @@
+package de.ztiger.IF.inventory;
+
+import de.ztiger.IF.IFPlugin;
+import lombok.Getter;
+import org.bukkit.scheduler.BukkitTask;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+
+/**
+ * Builds the items of large menus on a worker pool and delivers them to their panes on the main thread.
+ * <p>
+ * Every target slot shows a placeholder right away. Workers build the entries in parallel, the
+ * finished {@link InventoryItem}s are queued and placed once per tick, at most
+ * {@link Job#maxPlacedPerTick(int) a fixed number} per tick, so opening a huge catalog never stalls the tick.
+ * Items of the visible page are placed first, items of hidden pages are stored without refreshing any slot.
+ * The builder runs off the main thread and must only create items, it must not touch the world, players or inventories.
+ */
+public final class RenderPipeline {
+
+    /**
+     * Number of worker threads building items.
+     */
+    public static final int PARALLELISM = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+    /**
+     * Default maximum number of items placed per tick.
+     */
+    public static final int DEFAULT_MAX_PLACED_PER_TICK = 128;
+
+    /**
+     * Worker pool building the items.
+     */
+    private static final ExecutorService WORKERS = Executors.newFixedThreadPool(PARALLELISM, runnable -> {
+        Thread thread = new Thread(runnable, "IF-RenderWorker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private RenderPipeline() {
+    }
+
+    /**
+     * Stops the worker pool. Running jobs stop building, called when the plugin is disabled.
+     */
+    public static void shutdown() {
+        WORKERS.shutdownNow();
+    }
+
+    /**
+     * Builds the entries into the given positions of a pane. Entries beyond the number of positions are ignored.
+     *
+     * @param pane        The {@link Pane} to fill
+     * @param layout      Positions (slot + row * 9) to fill, in entry order
+     * @param entries     The entries to build
+     * @param builder     Function building an entry into an {@link InventoryItem}, called on a worker thread
+     * @param placeholder The {@link InventoryItem} shown until a slot is ready, or null to leave the slots empty
+     * @param <T>         Type of the entries
+     * @return The running {@link Job}
+     */
+    public static <T> Job<T> render(Pane pane, int[] layout, List<T> entries, Function<T, InventoryItem> builder, @Nullable InventoryItem placeholder) {
+        int count = Math.min(entries.size(), layout.length);
+        Pane[] panes = new Pane[count];
+        int[] positions = new int[count];
+
+        for (int i = 0; i < count; i++) {
+            panes[i] = pane;
+            positions[i] = layout[i];
+        }
+
+        return start(new Job<>(new ArrayList<>(entries.subList(0, count)), panes, positions, builder, null), placeholder);
+    }
+
+    /**
+     * Builds the entries into new pages of a paginated pane, filling the given positions on every page.
+     * The pages are added right away, the entries of the current page are built first.
+     *
+     * @param paginatedPane The {@link PaginatedPane} to add the pages to
+     * @param layout        Positions (slot + row * 9) filled on every page, in entry order
+     * @param entries       The entries to build
+     * @param builder       Function building an entry into an {@link InventoryItem}, called on a worker thread
+     * @param placeholder   The {@link InventoryItem} shown until a slot is ready, or null to leave the slots empty
+     * @param <T>           Type of the entries
+     * @return The running {@link Job}
+     */
+    public static <T> Job<T> render(PaginatedPane paginatedPane, int[] layout, List<T> entries, Function<T, InventoryItem> builder, @Nullable InventoryItem placeholder) {
+        if (layout.length == 0) {
+            throw new IllegalArgumentException("Layout must contain at least one position");
+        }
+
+        int firstPage = paginatedPane.getPageCount();
+        int pageCount = (entries.size() + layout.length - 1) / layout.length;
+        Pane[] pages = new Pane[pageCount];
+
+        for (int p = 0; p < pageCount; p++) {
+            pages[p] = new Pane();
+            paginatedPane.addPage(pages[p]);
+        }
+
+        // Build the page the player looks at first, then the following ones
+        int current = Math.clamp(paginatedPane.getPage() - firstPage, 0, Math.max(0, pageCount - 1));
+        List<T> ordered = new ArrayList<>(entries.size());
+        Pane[] panes = new Pane[entries.size()];
+        int[] positions = new int[entries.size()];
+
+        for (int i = 0; i < pageCount; i++) {
+            int p = (current + i) % pageCount;
+            int start = p * layout.length;
+            int end = Math.min(entries.size(), start + layout.length);
+
+            for (int e = start; e < end; e++) {
+                panes[ordered.size()] = pages[p];
+                positions[ordered.size()] = layout[e - start];
+                ordered.add(entries.get(e));
+            }
+        }
+
+        return start(new Job<>(ordered, panes, positions, builder, paginatedPane), placeholder);
+    }
+
+    /**
+     * Places the placeholders and starts the workers and the delivery task of a job.
+     *
+     * @param job         The {@link Job} to start
+     * @param placeholder The placeholder {@link InventoryItem}, or null
+     * @param <T>         Type of the entries
+     * @return The started job
+     */
+    private static <T> Job<T> start(Job<T> job, @Nullable InventoryItem placeholder) {
+        if (placeholder != null) {
+            Pane visible = job.getVisiblePane();
+            for (int i = 0; i < job.total; i++) {
+                if (job.panes[i] == visible) job.panes[i].replaceItem(job.positions[i], placeholder);
+                else job.panes[i].storeItem(job.positions[i], placeholder);
+            }
+        }
+
+        if (job.total == 0) {
+            job.future.complete(null);
+            return job;
+        }
+
+        for (int i = 0; i < Math.min(PARALLELISM, job.total); i++) WORKERS.execute(job::work);
+
+        IFPlugin plugin = IFPlugin.getInstance();
+        job.delivery = plugin.getServer().getScheduler().runTaskTimer(plugin, job::deliver, 1L, 1L);
+        return job;
+    }
+
+    /**
+     * A running bulk build.
+     *
+     * @param <T> Type of the entries
+     */
+    public static final class Job<T> {
+
+        /**
+         * Entries in build order.
+         */
+        private final List<T> entries;
+
+        /**
+         * Target pane of every entry.
+         */
+        private final Pane[] panes;
+
+        /**
+         * Target position of every entry.
+         */
+        private final int[] positions;
+
+        /**
+         * Function building an entry into an {@link InventoryItem}.
+         */
+        private final Function<T, InventoryItem> builder;
+
+        /**
+         * The paginated pane whose pages are filled, null if a single pane is filled.
+         */
+        @Nullable
+        private final PaginatedPane paginatedPane;
+
+        /**
+         * Built items taken from the queue but not placed yet, by target pane.
+         */
+        private final Map<Pane, Deque<Built>> pending = new IdentityHashMap<>();
+
+        /**
+         * Index of the next entry to build, shared by the workers.
+         */
+        private final AtomicInteger next = new AtomicInteger();
+
+        /**
+         * Built items waiting for the main thread, as entry index and item.
+         */
+        private final Queue<Built> built = new ConcurrentLinkedQueue<>();
+
+        /**
+         * Number of entries to build.
+         */
+        @Getter
+        private final int total;
+
+        /**
+         * Number of entries placed in their pane.
+         */
+        @Getter
+        private int completed;
+
+        /**
+         * Whether the job was cancelled.
+         */
+        @Getter
+        private volatile boolean cancelled;
+
+        /**
+         * Future completed on the main thread once every entry is placed.
+         */
+        @Getter
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        /**
+         * Maximum number of items placed per tick.
+         */
+        @Getter
+        private int maxPlacedPerTick = DEFAULT_MAX_PLACED_PER_TICK;
+
+        /**
+         * Called on the main thread after each tick that placed items.
+         */
+        @Nullable
+        private Consumer<Job<T>> onProgress;
+
+        /**
+         * Task placing the built items.
+         */
+        @Nullable
+        private BukkitTask delivery;
+
+        private Job(List<T> entries, Pane[] panes, int[] positions, Function<T, InventoryItem> builder, @Nullable PaginatedPane paginatedPane) {
+            this.entries = entries;
+            this.panes = panes;
+            this.positions = positions;
+            this.builder = builder;
+            this.paginatedPane = paginatedPane;
+            this.total = entries.size();
+        }
+
+        /**
+         * Sets the maximum number of items placed per tick.
+         *
+         * @param maxPlacedPerTick Maximum number of items, at least 1
+         * @return This job
+         */
+        public Job<T> maxPlacedPerTick(int maxPlacedPerTick) {
+            if (maxPlacedPerTick < 1) {
+                throw new IllegalArgumentException("At least one item must be placed per tick");
+            }
+
+            this.maxPlacedPerTick = maxPlacedPerTick;
+            return this;
+        }
+
+        /**
+         * Sets the consumer called on the main thread after each tick that placed items,
+         * for example to update a progress bar.
+         *
+         * @param onProgress Consumer receiving the job
+         * @return This job
+         */
+        public Job<T> onProgress(@Nullable Consumer<Job<T>> onProgress) {
+            this.onProgress = onProgress;
+            return this;
+        }
+
+        /**
+         * Gets the share of placed entries.
+         *
+         * @return The progress between 0 and 1
+         */
+        public double getProgress() {
+            return total == 0 ? 1 : (double) completed / total;
+        }
+
+        /**
+         * Checks whether every entry is placed.
+         *
+         * @return True if the job is done
+         */
+        public boolean isDone() {
+            return completed == total;
+        }
+
+        /**
+         * Stops building and placing items. Slots not placed yet keep their placeholder.
+         */
+        public void cancel() {
+            cancelled = true;
+            if (delivery != null) delivery.cancel();
+            future.cancel(false);
+        }
+
+        /**
+         * Builds entries until none are left. Run by every worker of the job.
+         * An entry that fails to build is still queued, so it counts as completed and the job always finishes.
+         */
+        private void work() {
+            for (int i = next.getAndIncrement(); i < total && !cancelled; i = next.getAndIncrement()) {
+                InventoryItem item = null;
+
+                try {
+                    item = builder.apply(entries.get(i));
+                } catch (Throwable e) {
+                    IFPlugin.getInstance().getLogger().log(Level.WARNING, "Could not build item " + i + " of a render job", e);
+                }
+
+                built.add(new Built(i, item));
+            }
+        }
+
+        /**
+         * Places the built items in their panes, the visible pane first. Runs on the main thread once per tick.
+         */
+        private void deliver() {
+            if (cancelled) return;
+
+            for (Built result; (result = built.poll()) != null; ) {
+                pending.computeIfAbsent(panes[result.index], pane -> new ArrayDeque<>()).add(result);
+            }
+
+            int placed = 0;
+            Pane visible = getVisiblePane();
+            Deque<Built> visibleQueue = visible == null ? null : pending.get(visible);
+            if (visibleQueue != null) {
+                placed += place(visible, visibleQueue, true, maxPlacedPerTick);
+                if (visibleQueue.isEmpty()) pending.remove(visible);
+            }
+
+            for (Iterator<Map.Entry<Pane, Deque<Built>>> iterator = pending.entrySet().iterator(); iterator.hasNext() && placed < maxPlacedPerTick; ) {
+                Map.Entry<Pane, Deque<Built>> entry = iterator.next();
+                if (entry.getKey() == visible) continue;
+
+                placed += place(entry.getKey(), entry.getValue(), false, maxPlacedPerTick - placed);
+                if (entry.getValue().isEmpty()) iterator.remove();
+            }
+
+            if (placed == 0) return;
+
+            if (onProgress != null) onProgress.accept(this);
+
+            if (isDone()) {
+                if (delivery != null) delivery.cancel();
+                future.complete(null);
+            }
+        }
+
+        /**
+         * Gets the target pane that is currently shown.
+         *
+         * @return The filled {@link Pane}, or the current page of the filled {@link PaginatedPane}
+         */
+        @Nullable
+        private Pane getVisiblePane() {
+            return paginatedPane == null ? panes[0] : paginatedPane.getCurrentPane();
+        }
+
+        /**
+         * Places pending items of a pane and counts them as completed.
+         * The caller removes the queue from {@link #pending} once it is empty.
+         *
+         * @param pane    The target {@link Pane}
+         * @param queue   The pending items of the pane
+         * @param visible Whether the pane is shown, hidden panes are filled without refreshing slots
+         * @param limit   Maximum number of items to place
+         * @return The number of placed items
+         */
+        private int place(Pane pane, Deque<Built> queue, boolean visible, int limit) {
+            int placed = 0;
+            for (Built result; placed < limit && (result = queue.poll()) != null; ) {
+                placed++;
+                completed++;
+                if (result.item == null) continue;
+
+                if (visible) pane.replaceItem(positions[result.index], result.item);
+                else pane.storeItem(positions[result.index], result.item);
+            }
+
+            return placed;
+        }
+    }
+
+    /**
+     * A built item waiting for the main thread.
+     *
+     * @param index Index of the entry
+     * @param item  The built {@link InventoryItem}, or null if building failed
+     */
+    private record Built(int index, @Nullable InventoryItem item) {
+    }
+}
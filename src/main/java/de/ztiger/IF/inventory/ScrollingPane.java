@@ -0,0 +1,269 @@
+package de.ztiger.IF.inventory;
+
+import lombok.Getter;
+
+import javax.annotation.Nullable;
+import java.util.function.IntFunction;
+
+/**
+ * A pane showing a window of rows from a larger virtual grid of entries, scrolled one row at a time.
+ * <p>
+ * The rendered rows are kept in a ring buffer. Scrolling moves the window over the buffer and only
+ * renders the newly exposed rows, the other rows are reused and only their shifted slots are re-sent.
+ * Items added with {@link #addItem(int, int, InventoryItem)} outside the scrolling region, like scroll
+ * buttons, are shown as in a regular pane.
+ */
+public class ScrollingPane extends Pane {
+
+    /**
+     * First slot (column) of the scrolling region.
+     */
+    @Getter
+    protected final int startSlot;
+
+    /**
+     * First row of the scrolling region.
+     */
+    @Getter
+    protected final int startRow;
+
+    /**
+     * Number of columns of the scrolling region, and entries per virtual row.
+     */
+    @Getter
+    protected final int columns;
+
+    /**
+     * Number of visible rows of the scrolling region.
+     */
+    @Getter
+    protected final int rows;
+
+    /**
+     * Bitset of the positions covered by the scrolling region.
+     */
+    protected final long regionMask;
+
+    /**
+     * Renders the entry at an index into an {@link InventoryItem}. Always called on the main thread.
+     */
+    protected final IntFunction<InventoryItem> renderer;
+
+    /**
+     * Total number of entries in the virtual grid.
+     */
+    @Getter
+    protected int totalEntries;
+
+    /**
+     * Index of the first visible virtual row.
+     */
+    @Getter
+    protected int offset;
+
+    /**
+     * Ring buffer of rendered rows, the visible row {@code r} being stored at {@code (head + r) % rows}.
+     */
+    protected final InventoryItem[][] window;
+
+    /**
+     * Index in {@link #window} of the first visible row.
+     */
+    protected int head;
+
+    /**
+     * Whether {@link #window} holds the rows at the current offset.
+     */
+    protected boolean built;
+
+    /**
+     * Bitset of the positions in the scrolling region showing an entry.
+     */
+    protected long windowMask;
+
+    /**
+     * Creates a scrolling pane.
+     *
+     * @param startSlot    First slot (column) of the scrolling region (0-indexed)
+     * @param startRow     First row of the scrolling region (0-indexed)
+     * @param columns      Number of columns of the scrolling region
+     * @param rows         Number of visible rows of the scrolling region
+     * @param totalEntries Total number of entries in the virtual grid
+     * @param renderer     Function rendering the entry at an index into an {@link InventoryItem}
+     */
+    public ScrollingPane(int startSlot, int startRow, int columns, int rows, int totalEntries, IntFunction<InventoryItem> renderer) {
+        if (startSlot < 0 || columns < 1 || startSlot + columns > 9 || startRow < 0 || rows < 1 || (startRow + rows) * 9 > MAX_SLOTS) {
+            throw new IllegalArgumentException("Scrolling region out of bounds: " + columns + "x" + rows + " at slot " + startSlot + ", row " + startRow);
+        }
+
+        this.startSlot = startSlot;
+        this.startRow = startRow;
+        this.columns = columns;
+        this.rows = rows;
+        this.totalEntries = Math.max(0, totalEntries);
+        this.renderer = renderer;
+        this.window = new InventoryItem[rows][columns];
+
+        long rowMask = ((1L << columns) - 1) << startSlot;
+        long mask = 0;
+        for (int r = 0; r < rows; r++) {
+            mask |= rowMask << ((startRow + r) * 9);
+        }
+        this.regionMask = mask;
+
+        updateWindowMask();
+    }
+
+    /**
+     * Gets the number of virtual rows.
+     *
+     * @return The number of rows needed to show every entry
+     */
+    public int getTotalRows() {
+        return (totalEntries + columns - 1) / columns;
+    }
+
+    /**
+     * Gets the highest offset at which the window is still filled.
+     *
+     * @return The maximum offset
+     */
+    public int getMaxOffset() {
+        return Math.max(0, getTotalRows() - rows);
+    }
+
+    /**
+     * Scrolls the window one row down.
+     */
+    public void scrollDown() {
+        scroll(1);
+    }
+
+    /**
+     * Scrolls the window one row up.
+     */
+    public void scrollUp() {
+        scroll(-1);
+    }
+
+    /**
+     * Scrolls the window by the given number of rows, stopping at the first and last row.
+     *
+     * @param delta Number of rows to scroll, negative to scroll up
+     */
+    public void scroll(int delta) {
+        setOffset(offset + delta);
+    }
+
+    /**
+     * Moves the window to the given virtual row, clamped to the valid range.
+     * Only the rows that become visible are rendered.
+     *
+     * @param offset Index of the first visible virtual row
+     */
+    public void setOffset(int offset) {
+        int target = Math.clamp(offset, 0, getMaxOffset());
+        int delta = target - this.offset;
+        if (delta == 0) return;
+
+        long previousMask = windowMask;
+        this.offset = target;
+
+        if (built) {
+            if (Math.abs(delta) >= rows) {
+                buildWindow();
+            } else if (delta > 0) {
+                head = (head + delta) % rows;
+                for (int r = rows - delta; r < rows; r++) buildRow(r);
+            } else {
+                head = (head + delta + rows) % rows;
+                for (int r = 0; r < -delta; r++) buildRow(r);
+            }
+        }
+
+        updateWindowMask();
+
+        if (chestInventory != null) {
+            chestInventory.refreshSlots(previousMask | windowMask);
+        }
+    }
+
+    /**
+     * Sets the total number of entries and re-renders the visible rows.
+     *
+     * @param totalEntries The new total number of entries
+     */
+    public void setTotalEntries(int totalEntries) {
+        this.totalEntries = Math.max(0, totalEntries);
+        invalidate();
+    }
+
+    /**
+     * Drops the rendered rows and re-renders the visible ones.
+     * Call this after the data behind the renderer changed.
+     */
+    public void invalidate() {
+        long previousMask = windowMask;
+
+        offset = Math.min(offset, getMaxOffset());
+        built = false;
+        updateWindowMask();
+
+        if (chestInventory != null) {
+            chestInventory.refreshSlots(previousMask | windowMask);
+        }
+    }
+
+    @Override
+    public long getSlotMask() {
+        return (super.getSlotMask() & ~regionMask) | windowMask;
+    }
+
+    @Nullable
+    @Override
+    public InventoryItem getItem(int position) {
+        if (position < 0 || position >= MAX_SLOTS) return null;
+        if ((regionMask & (1L << position)) == 0) return super.getItem(position);
+
+        if (!built) buildWindow();
+        return window[(head + position / 9 - startRow) % rows][position % 9 - startSlot];
+    }
+
+    /**
+     * Renders every visible row.
+     */
+    protected void buildWindow() {
+        head = 0;
+        for (int r = 0; r < rows; r++) buildRow(r);
+        built = true;
+    }
+
+    /**
+     * Renders a visible row into its slot of the ring buffer.
+     *
+     * @param r Index of the visible row (0-indexed)
+     */
+    protected void buildRow(int r) {
+        InventoryItem[] row = window[(head + r) % rows];
+        int first = (offset + r) * columns;
+
+        for (int c = 0; c < columns; c++) {
+            int index = first + c;
+            row[c] = index < totalEntries ? renderer.apply(index) : null;
+        }
+    }
+
+    /**
+     * Recomputes {@link #windowMask} from the offset and the number of entries.
+     */
+    protected void updateWindowMask() {
+        long mask = 0;
+
+        for (int r = 0; r < rows; r++) {
+            int count = Math.clamp(totalEntries - (long) (offset + r) * columns, 0, columns);
+            mask |= ((1L << count) - 1) << ((startRow + r) * 9 + startSlot);
+        }
+
+        windowMask = mask;
+    }
+}
@@ -0,0 +1,190 @@
+package de.ztiger.IF.inventory;
+
+import net.kyori.adventure.text.Component;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A read-only chest inventory whose layout is shared by all of its viewers.
+ * Players opened through {@link #open(Player)} all look at the same underlying inventory, so the memory
+ * and build cost do not grow with the number of viewers. Players that need personal slots get a
+ * lightweight view through {@link #open(Player, Pane)}, which only holds the overlay pane and falls
+ * back to the shared layout for every other slot. Every change of the shared layout is forwarded to the
+ * open views. Closed views are kept and reused for the next overlay, so a view's Bukkit inventory is only
+ * created for the peak number of concurrent overlay viewers.
+ * Every click and drag in a shared inventory is cancelled.
+ */
+public class SharedChestInventory extends ChestInventory {
+
+    /**
+     * Maximum number of closed views kept for reuse.
+     */
+    public static final int MAX_IDLE_VIEWS = 16;
+
+    /**
+     * Open overlay views backed by this layout.
+     */
+    private final Set<OverlayView> overlayViews = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Closed overlay views waiting for reuse.
+     */
+    private final Deque<OverlayView> idleViews = new ArrayDeque<>();
+
+    /**
+     * Creates a shared chest inventory with the given title and number of rows.
+     *
+     * @param rows  Number of rows (1-6)
+     * @param title Title of the inventory
+     */
+    public SharedChestInventory(int rows, Component title) {
+        super(rows, title);
+    }
+
+    /**
+     * Opens a personal view of the shared layout with the given overlay for the player.
+     * Slots covered by the overlay show its items, all other slots follow the shared layout.
+     *
+     * @param player  Player to open the view for
+     * @param overlay {@link Pane} holding the player's personal slots
+     * @return The {@link ChestInventory} representing the player's view
+     */
+    public ChestInventory open(Player player, Pane overlay) {
+        OverlayView view = idleViews.pollLast();
+        if (view == null || view.hasViewers()) view = new OverlayView(this);
+
+        view.setOverlay(overlay);
+        view.open(player);
+        return view;
+    }
+
+    /**
+     * Gets the number of open overlay views.
+     *
+     * @return The number of views
+     */
+    public int getViewCount() {
+        return overlayViews.size();
+    }
+
+    @Override
+    void slotChanged(int position) {
+        for (OverlayView view : overlayViews) {
+            view.refreshSlot(position);
+        }
+    }
+
+    @Override
+    public void callOnGlobalClick(InventoryClickEvent event) {
+        event.setCancelled(true);
+        super.callOnGlobalClick(event);
+    }
+
+    @Override
+    public void callOnGlobalDrag(InventoryDragEvent event) {
+        event.setCancelled(true);
+        super.callOnGlobalDrag(event);
+    }
+
+    /**
+     * A single player's view of a shared layout with a personal overlay.
+     */
+    static class OverlayView extends ChestInventory {
+
+        /**
+         * The shared layout backing this view.
+         */
+        private final SharedChestInventory layout;
+
+        /**
+         * The current personal overlay, if any.
+         */
+        private Pane overlay;
+
+        /**
+         * Creates an overlay view of the given layout.
+         *
+         * @param layout The {@link SharedChestInventory} to show
+         */
+        OverlayView(SharedChestInventory layout) {
+            super(layout.getRows(), layout.getTitle());
+            this.layout = layout;
+        }
+
+        /**
+         * Replaces the personal overlay and re-resolves every slot.
+         *
+         * @param overlay {@link Pane} holding the personal slots
+         */
+        void setOverlay(Pane overlay) {
+            if (this.overlay != null) removePane(this.overlay);
+            this.overlay = overlay;
+
+            addPane(overlay);
+            refreshSlots((1L << (layout.getRows() * 9)) - 1);
+        }
+
+        @Override
+        protected InventoryItem resolveItem(int position) {
+            InventoryItem item = super.resolveItem(position);
+            return item != null ? item : layout.getSlotItem(position);
+        }
+
+        @Nullable
+        @Override
+        public Pane getPaneAt(int position) {
+            Pane pane = super.getPaneAt(position);
+            return pane != null ? pane : layout.getPaneAt(position);
+        }
+
+        @Override
+        void show(Player player) {
+            layout.idleViews.remove(this);
+            layout.overlayViews.add(this);
+            super.show(player);
+        }
+
+        @Override
+        void released() {
+            if (hasViewers() || !layout.overlayViews.remove(this)) return;
+
+            // An idle view must not keep the previous player's overlay or anything its handlers captured
+            if (overlay != null) {
+                removePane(overlay);
+                overlay = null;
+            }
+
+            if (layout.idleViews.size() < MAX_IDLE_VIEWS) layout.idleViews.addLast(this);
+        }
+
+        @Override
+        public void callOnGlobalClick(InventoryClickEvent event) {
+            layout.callOnGlobalClick(event);
+        }
+
+        @Override
+        public void callOnGlobalDrag(InventoryDragEvent event) {
+            layout.callOnGlobalDrag(event);
+        }
+
+        @Override
+        public void callOnClose(InventoryCloseEvent event) {
+            layout.callOnClose(event);
+        }
+
+        @Override
+        public void callOnFinish(UUID playerId) {
+            layout.callOnFinish(playerId);
+        }
+    }
+}
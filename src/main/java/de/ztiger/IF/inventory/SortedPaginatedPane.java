@@ -0,0 +1,287 @@
+package de.ztiger.IF.inventory;
+
+import de.ztiger.IF.data.IndexedSkipList;
+import de.ztiger.IF.data.Pattern;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A paginated pane showing live entries in sorted order, backed by an {@link IndexedSkipList}.
+ * <p>
+ * Adding, removing or re-ranking an entry works out the range of ranks that moved and only refreshes the
+ * slots of that range on the current page. Entries that merely shift keep their rendered item, only entries
+ * that are new or changed are rendered again. Only accessed on the main thread.
+ *
+ * @param <T> Type of the entries
+ */
+public class SortedPaginatedPane<T> extends PagedPane {
+
+    /**
+     * Positions filled on every page, in rank order.
+     */
+    protected final int[] layout;
+
+    /**
+     * Index in the layout of every position, -1 for positions outside the layout.
+     */
+    protected final int[] layoutIndex = new int[MAX_SLOTS];
+
+    /**
+     * Bitset of the first {@code n} positions of the layout, by {@code n}.
+     */
+    protected final long[] layoutMasks;
+
+    /**
+     * Sorted entries.
+     */
+    protected final IndexedSkipList<T> entries;
+
+    /**
+     * Renders an entry into an {@link InventoryItem}.
+     */
+    protected final Function<T, InventoryItem> renderer;
+
+    /**
+     * Rendered items of the entries shown recently, by entry identity.
+     */
+    protected final Map<T, InventoryItem> rendered = new IdentityHashMap<>();
+
+    /**
+     * Creates a sorted paginated pane.
+     *
+     * @param layout     Positions (slot + row * 9) filled on every page, in rank order
+     * @param comparator The order of the entries
+     * @param renderer   Function rendering an entry into an {@link InventoryItem}
+     * @throws IllegalArgumentException  If the layout is empty or contains a position twice
+     * @throws IndexOutOfBoundsException If a position of the layout is outside the inventory
+     */
+    public SortedPaginatedPane(int[] layout, Comparator<? super T> comparator, Function<T, InventoryItem> renderer) {
+        this.layout = checkLayout(layout);
+        this.layoutMasks = new long[layout.length + 1];
+        Arrays.fill(layoutIndex, -1);
+        for (int i = 0; i < layout.length; i++) {
+            layoutIndex[layout[i]] = i;
+            layoutMasks[i + 1] = layoutMasks[i] | (1L << layout[i]);
+        }
+
+        this.entries = new IndexedSkipList<>(comparator);
+        this.renderer = renderer;
+    }
+
+    /**
+     * Creates a sorted paginated pane filling every slot marked with the given key in the pattern.
+     *
+     * @param pattern    The {@link Pattern} describing the page layout
+     * @param key        Character marking the entry slots in the pattern
+     * @param comparator The order of the entries
+     * @param renderer   Function rendering an entry into an {@link InventoryItem}
+     */
+    public SortedPaginatedPane(Pattern pattern, char key, Comparator<? super T> comparator, Function<T, InventoryItem> renderer) {
+        this(VirtualPaginatedPane.layoutOf(pattern, key), comparator, renderer);
+    }
+
+    /**
+     * Gets the number of entries shown on a single page.
+     *
+     * @return The page size
+     */
+    public int getPageSize() {
+        return layout.length;
+    }
+
+    /**
+     * Gets the number of entries.
+     *
+     * @return The number of entries
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the entry at a rank.
+     *
+     * @param rank The rank (0-indexed)
+     * @return The entry, or null if the rank is out of range
+     */
+    @Nullable
+    public T getEntry(int rank) {
+        return entries.get(rank);
+    }
+
+    /**
+     * Gets the rank of an entry.
+     *
+     * @param entry The entry
+     * @return The rank (0-indexed), or -1 if the entry is not shown
+     */
+    public int indexOf(T entry) {
+        return entries.indexOf(entry);
+    }
+
+    /**
+     * Inserts an entry at its sorted position and repaints the ranks it shifted.
+     *
+     * @param entry The entry to insert
+     */
+    public void add(T entry) {
+        int rank = entries.add(entry);
+        repaint(rank, entries.size() - 1);
+    }
+
+    /**
+     * Inserts several entries and repaints the shifted ranks once.
+     *
+     * @param entries The entries to insert
+     */
+    public void addAll(Collection<? extends T> entries) {
+        int first = Integer.MAX_VALUE;
+        for (T entry : entries) first = Math.min(first, this.entries.add(entry));
+
+        if (first != Integer.MAX_VALUE) repaint(first, this.entries.size() - 1);
+    }
+
+    /**
+     * Removes an entry and repaints the ranks that moved up.
+     *
+     * @param entry The entry to remove
+     * @return True if the entry was shown
+     */
+    public boolean remove(T entry) {
+        int size = entries.size();
+        int rank = entries.remove(entry);
+        if (rank < 0) return false;
+
+        rendered.remove(entry);
+        repaint(rank, size - 1);
+        return true;
+    }
+
+    /**
+     * Replaces an entry with another one, for example an updated immutable record, and repaints the ranks in between.
+     *
+     * @param previous The entry to replace
+     * @param entry    The new entry
+     */
+    public void replace(T previous, T entry) {
+        int from = entries.remove(previous);
+        if (from < 0) {
+            add(entry);
+            return;
+        }
+
+        rendered.remove(previous);
+        int to = entries.add(entry);
+        repaint(Math.min(from, to), Math.max(from, to));
+    }
+
+    /**
+     * Changes the sort key or content of an entry, re-ranks it and repaints the ranks in between.
+     * The entry must only be changed through the mutation, never while it is shown.
+     *
+     * @param entry    The entry to change
+     * @param mutation Consumer changing the entry
+     */
+    public void update(T entry, Consumer<T> mutation) {
+        int from = entries.remove(entry);
+        mutation.accept(entry);
+        rendered.remove(entry);
+
+        int to = entries.add(entry);
+        repaint(from < 0 ? to : Math.min(from, to), from < 0 ? entries.size() - 1 : Math.max(from, to));
+    }
+
+    /**
+     * Changes the order of the entries and repaints the current page.
+     *
+     * @param comparator The new order
+     */
+    public void setComparator(Comparator<? super T> comparator) {
+        entries.setComparator(comparator);
+        repaint(0, entries.size() - 1);
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public void clear() {
+        int size = entries.size();
+        entries.clear();
+        rendered.clear();
+        repaint(0, size - 1);
+    }
+
+    @Override
+    public int getPageCount() {
+        return (entries.size() + layout.length - 1) / layout.length;
+    }
+
+    /**
+     * Pages are rendered from the sorted entries slot by slot, not backed by panes.
+     *
+     * @return Always null
+     */
+    @Nullable
+    @Override
+    protected Pane getCurrentPane() {
+        return null;
+    }
+
+    @Override
+    protected void setPage(int page) {
+        rendered.clear();
+        super.setPage(page);
+    }
+
+    @Override
+    public long getSlotMask() {
+        int count = Math.clamp((long) entries.size() - (long) page * layout.length, 0, layout.length);
+        return layoutMasks[count];
+    }
+
+    @Nullable
+    @Override
+    public InventoryItem getItem(int position) {
+        if (position < 0 || position >= MAX_SLOTS || layoutIndex[position] < 0) return null;
+
+        T entry = entries.get(page * layout.length + layoutIndex[position]);
+        return entry == null ? null : rendered.computeIfAbsent(entry, renderer);
+    }
+
+    /**
+     * Refreshes the slots of the current page showing a rank in the given range.
+     * Moves to the last page if the current one no longer exists.
+     *
+     * @param from First changed rank (inclusive)
+     * @param to   Last changed rank (inclusive)
+     */
+    protected void repaint(int from, int to) {
+        if (page > 0 && page >= getPageCount()) {
+            if (getPageCount() > 0) {
+                setPage(getPageCount() - 1);
+                return;
+            }
+
+            page = 0;
+            from = 0;
+            to = layout.length - 1;
+        }
+
+        if (rendered.size() > layout.length * 2) rendered.clear();
+        if (chestInventory == null) return;
+
+        int start = page * layout.length;
+        int first = Math.max(from, start) - start;
+        int last = Math.min(to, start + layout.length - 1) - start;
+        if (first > last) return;
+
+        chestInventory.refreshSlots(layoutMasks[last + 1] & ~layoutMasks[first]);
+    }
+}
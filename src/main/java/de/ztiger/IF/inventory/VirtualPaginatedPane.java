@@ -0,0 +1,345 @@
+package de.ztiger.IF.inventory;
+
+import de.ztiger.IF.IFPlugin;
+import de.ztiger.IF.data.Pattern;
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.annotation.Nullable;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.logging.Level;
+
+/**
+ * A paginated pane whose pages are built on demand from a {@link PageProvider}.
+ * Only the visible page is rendered, a few recently shown pages are kept in a small LRU cache
+ * and the entries of the next page are fetched asynchronously ahead of time. The provider is only
+ * ever called asynchronously, a page whose entries are not ready yet shows the {@link #placeholder}.
+ *
+ * @param <T> Type of the entries shown on the pages
+ */
+public class VirtualPaginatedPane<T> extends PagedPane {
+
+    /**
+     * Executor running page prefetches on the Bukkit async scheduler.
+     */
+    private static final Executor ASYNC = runnable -> IFPlugin.getInstance().getServer().getScheduler().runTaskAsynchronously(IFPlugin.getInstance(), runnable);
+
+    /**
+     * Executor running completions on the main thread.
+     */
+    private static final Executor MAIN = runnable -> {
+        IFPlugin plugin = IFPlugin.getInstance();
+        if (plugin.isEnabled()) plugin.getServer().getScheduler().runTask(plugin, runnable);
+    };
+
+    /**
+     * Default number of rendered pages kept in the cache.
+     */
+    public static final int DEFAULT_CACHE_SIZE = 3;
+
+    /**
+     * Positions filled on every page, in entry order.
+     */
+    protected final int[] layout;
+
+    /**
+     * Provider of the entries for a page.
+     */
+    protected final PageProvider<T> provider;
+
+    /**
+     * Renders an entry into an {@link InventoryItem}. Always called on the main thread.
+     */
+    protected final Function<T, InventoryItem> renderer;
+
+    /**
+     * Item shown in the slots of a page while its entries are fetched, null to leave them empty.
+     */
+    @Getter
+    @Setter
+    @Nullable
+    protected InventoryItem placeholder;
+
+    /**
+     * Total number of entries available from the provider.
+     */
+    @Getter
+    protected int totalEntries;
+
+    /**
+     * Rendered pages by page index, in least recently used order.
+     */
+    protected final Map<Integer, Pane> cache;
+
+    /**
+     * Entries fetched ahead of time by page index.
+     */
+    protected final Map<Integer, CompletableFuture<List<T>>> prefetched = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a virtual paginated pane.
+     *
+     * @param layout       Positions (slot + row * 9) filled on every page, in entry order
+     * @param totalEntries Total number of entries available from the provider
+     * @param provider     The {@link PageProvider} returning the entries of a page
+     * @param renderer     Function rendering an entry into an {@link InventoryItem}
+     * @throws IllegalArgumentException  If the layout is empty or contains a position twice
+     * @throws IndexOutOfBoundsException If a position of the layout is outside the inventory
+     */
+    public VirtualPaginatedPane(int[] layout, int totalEntries, PageProvider<T> provider, Function<T, InventoryItem> renderer) {
+        this.layout = checkLayout(layout);
+        this.totalEntries = totalEntries;
+        this.provider = provider;
+        this.renderer = renderer;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Pane> eldest) {
+                return size() > DEFAULT_CACHE_SIZE;
+            }
+        };
+    }
+
+    /**
+     * Creates a virtual paginated pane filling every slot marked with the given key in the pattern.
+     *
+     * @param pattern      The {@link Pattern} describing the page layout
+     * @param key          Character marking the entry slots in the pattern
+     * @param totalEntries Total number of entries available from the provider
+     * @param provider     The {@link PageProvider} returning the entries of a page
+     * @param renderer     Function rendering an entry into an {@link InventoryItem}
+     */
+    public VirtualPaginatedPane(Pattern pattern, char key, int totalEntries, PageProvider<T> provider, Function<T, InventoryItem> renderer) {
+        this(layoutOf(pattern, key), totalEntries, provider, renderer);
+    }
+
+    /**
+     * Collects the positions marked with the given key in the pattern.
+     *
+     * @param pattern The {@link Pattern} to scan
+     * @param key     Character marking the positions
+     * @return The marked positions in row-major order
+     */
+    protected static int[] layoutOf(Pattern pattern, char key) {
+        long mask = pattern.getMask(key);
+        int[] positions = new int[Long.bitCount(mask)];
+
+        for (int i = 0; mask != 0; mask &= mask - 1) {
+            positions[i++] = Long.numberOfTrailingZeros(mask);
+        }
+
+        return positions;
+    }
+
+    /**
+     * Gets the number of entries shown on a single page.
+     *
+     * @return The page size
+     */
+    public int getPageSize() {
+        return layout.length;
+    }
+
+    @Override
+    public int getPageCount() {
+        return (totalEntries + layout.length - 1) / layout.length;
+    }
+
+    /**
+     * Sets the total number of entries and drops all rendered pages.
+     *
+     * @param totalEntries The new total number of entries
+     */
+    public void setTotalEntries(int totalEntries) {
+        this.totalEntries = totalEntries;
+        invalidate();
+    }
+
+    /**
+     * Drops all rendered and prefetched pages and re-renders the current page.
+     * Call this after the data behind the provider changed.
+     */
+    public void invalidate() {
+        Pane previous = cache.get(page);
+        long previousMask = previous == null ? 0 : previous.getSlotMask();
+
+        cache.clear();
+        prefetched.values().forEach(future -> future.cancel(false));
+        prefetched.clear();
+
+        if (page >= getPageCount()) page = Math.max(0, getPageCount() - 1);
+
+        if (chestInventory != null) {
+            chestInventory.refreshSlots(previousMask | getSlotMask());
+        }
+    }
+
+    @Override
+    protected void setPage(int page) {
+        super.setPage(page);
+        prefetch(page + 1);
+    }
+
+    @Nullable
+    @Override
+    protected Pane getCurrentPane() {
+        if (page >= getPageCount()) return null;
+        return getPagePane(page);
+    }
+
+    @Override
+    public void setChestInventory(ChestInventory chestInventory) {
+        super.setChestInventory(chestInventory);
+        for (Pane p : cache.values()) {
+            p.setChestInventory(chestInventory);
+        }
+        if (chestInventory != null) prefetch(page + 1);
+    }
+
+    /**
+     * Gets the rendered pane of the given page. The provider is never called and never waited for on the
+     * main thread: if the entries are not fetched yet, the page shows the placeholder and is filled in on
+     * the main thread once the async fetch completed.
+     *
+     * @param index Page index
+     * @return The rendered {@link Pane}, possibly still showing placeholders
+     */
+    protected Pane getPagePane(int index) {
+        Pane pane = cache.get(index);
+        if (pane != null) return pane;
+
+        CompletableFuture<List<T>> future = prefetched.remove(index);
+        if (future == null) future = fetch(index);
+
+        List<T> entries = future.isDone() && !future.isCompletedExceptionally() && !future.isCancelled() ? future.getNow(null) : null;
+        pane = entries != null ? render(entries) : placeholders(index);
+
+        pane.setChestInventory(chestInventory);
+        cache.put(index, pane);
+
+        if (entries == null) {
+            Pane pending = pane;
+            future.whenComplete((fetched, error) -> MAIN.execute(() -> complete(index, pending, fetched, error)));
+        }
+
+        return pane;
+    }
+
+    /**
+     * Starts fetching the entries of a page on the async scheduler.
+     *
+     * @param index Page index
+     * @return The future of the entries
+     */
+    private CompletableFuture<List<T>> fetch(int index) {
+        return CompletableFuture.supplyAsync(() -> provider.getEntries(index, layout.length), ASYNC);
+    }
+
+    /**
+     * Renders fetched entries into a new pane.
+     *
+     * @param entries The entries of the page
+     * @return The rendered {@link Pane}
+     */
+    private Pane render(List<T> entries) {
+        Pane pane = new Pane();
+
+        for (int i = 0; i < Math.min(entries.size(), layout.length); i++) {
+            int position = layout[i];
+            pane.addItem(position % 9, position / 9, renderer.apply(entries.get(i)));
+        }
+
+        return pane;
+    }
+
+    /**
+     * Creates a pane showing the placeholder in every slot the page is expected to fill.
+     *
+     * @param index Page index
+     * @return The placeholder {@link Pane}
+     */
+    private Pane placeholders(int index) {
+        Pane pane = new Pane();
+        if (placeholder == null) return pane;
+
+        int count = Math.clamp((long) totalEntries - (long) index * layout.length, 0, layout.length);
+        for (int i = 0; i < count; i++) {
+            pane.addItem(layout[i] % 9, layout[i] / 9, placeholder);
+        }
+
+        return pane;
+    }
+
+    /**
+     * Replaces a placeholder page with its rendered entries. Runs on the main thread.
+     * Ignored if the page was dropped or invalidated while fetching, kept as prefetched if it is not shown.
+     *
+     * @param index   Page index
+     * @param pending The placeholder {@link Pane} shown while fetching
+     * @param entries The fetched entries, or null if the fetch failed
+     * @param error   The failure, or null
+     */
+    private void complete(int index, Pane pending, @Nullable List<T> entries, @Nullable Throwable error) {
+        // Checked through the values, a lookup would reorder the LRU cache
+        if (!cache.containsKey(index) || !cache.values().contains(pending)) return;
+
+        if (error != null) {
+            if (!(error instanceof CancellationException) && !(error.getCause() instanceof CancellationException)) {
+                IFPlugin.getInstance().getLogger().log(Level.WARNING, "Could not fetch page " + index + " of a virtual paginated pane", error);
+            }
+            return;
+        }
+
+        cache.remove(index);
+        pending.setChestInventory(null);
+
+        // A page that is not shown anymore is rendered when it is shown again
+        if (index != page) {
+            prefetched.put(index, CompletableFuture.completedFuture(entries));
+            return;
+        }
+
+        Pane pane = render(entries);
+        pane.setChestInventory(chestInventory);
+        cache.put(index, pane);
+
+        if (chestInventory != null) {
+            chestInventory.refreshSlots(pending.getSlotMask() | pane.getSlotMask());
+        }
+    }
+
+    /**
+     * Starts fetching the entries of a page asynchronously, unless it is cached or already fetching.
+     *
+     * @param index Page index
+     */
+    protected void prefetch(int index) {
+        if (index < 0 || index >= getPageCount() || cache.containsKey(index)) return;
+
+        prefetched.computeIfAbsent(index, this::fetch);
+    }
+
+    /**
+     * Provides the entries shown on a page. May be called from an async thread.
+     *
+     * @param <T> Type of the entries
+     */
+    @FunctionalInterface
+    public interface PageProvider<T> {
+
+        /**
+         * Gets the entries of the given page.
+         *
+         * @param page     Page index (0-indexed)
+         * @param pageSize Maximum number of entries on a page
+         * @return The entries of the page, at most pageSize long
+         */
+        List<T> getEntries(int page, int pageSize);
+    }
+}
@@ -0,0 +1,274 @@
+package de.ztiger.IF.menu;
+
+import de.ztiger.IF.inventory.ChestInventory;
+import lombok.Getter;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.plugin.Plugin;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.stream.Stream;
+
+/**
+ * Registry of menus defined in YAML files in the {@code menus} folder of the plugin's data folder.
+ * <p>
+ * Each file is compiled once into an immutable {@link MenuTemplate}. A watcher thread recompiles files
+ * as they change and swaps the template atomically. Inventories that are already open keep the template
+ * they were created from. A file that fails to compile keeps its previous template.
+ * <pre>
+ * title: "&lt;gold&gt;Server Selector"
+ * pattern:
+ *   - "#########"
+ *   - "#   l   #"
+ *   - "#########"
+ * items:
+ *   "#":
+ *     material: GRAY_STAINED_GLASS_PANE
+ *     name: " "
+ *   l:
+ *     material: PLAYER_HEAD
+ *     texture: "19bf3292e126a105b54eba713aa1b152d541a1d8938829c56364d178ed22bf"
+ *     name: "&lt;green&gt;Lobby"
+ *     lore: ["&lt;gray&gt;Click to join"]
+ *     glow: true
+ *     action: join-lobby
+ * </pre>
+ */
+public class MenuRegistry {
+
+    /**
+     * Singleton instance of the MenuRegistry.
+     */
+    @Getter
+    private static volatile MenuRegistry instance;
+
+    /**
+     * Folder containing the menu files.
+     */
+    @Getter
+    private final Path folder;
+
+    /**
+     * Plugin owning the registry, used for logging.
+     */
+    private final Plugin plugin;
+
+    /**
+     * Compiled menus by id.
+     */
+    private final Map<String, MenuTemplate> menus = new ConcurrentHashMap<>();
+
+    /**
+     * Click actions by name, referenced from menu files.
+     */
+    private final Map<String, Consumer<InventoryClickEvent>> actions = new ConcurrentHashMap<>();
+
+    /**
+     * Watch service of the menu folder, null if watching is not available.
+     */
+    @Nullable
+    private WatchService watchService;
+
+    private MenuRegistry(Plugin plugin, Path folder) {
+        this.plugin = plugin;
+        this.folder = folder;
+    }
+
+    /**
+     * Initializes the MenuRegistry, compiles all menu files and starts watching the folder for changes.
+     *
+     * @param plugin The {@link Plugin} whose data folder holds the menus
+     */
+    public static void init(Plugin plugin) {
+        MenuRegistry registry = new MenuRegistry(plugin, plugin.getDataFolder().toPath().resolve("menus"));
+        instance = registry;
+
+        try {
+            Files.createDirectories(registry.folder);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not create menu folder " + registry.folder, e);
+            return;
+        }
+
+        registry.reloadAll();
+        registry.startWatching();
+    }
+
+    /**
+     * Stops watching the menu folder.
+     */
+    public void shutdown() {
+        if (watchService == null) return;
+
+        try {
+            watchService.close();
+        } catch (IOException ignored) {
+            // Closing only fails if the service is already broken
+        }
+    }
+
+    /**
+     * Gets a compiled menu.
+     *
+     * @param id Id of the menu, the file name without extension
+     * @return The {@link MenuTemplate}, or null if there is no such menu
+     */
+    @Nullable
+    public MenuTemplate getMenu(String id) {
+        return menus.get(id);
+    }
+
+    /**
+     * Gets all compiled menus.
+     *
+     * @return Unmodifiable view of the menus
+     */
+    public Collection<MenuTemplate> getMenus() {
+        return Collections.unmodifiableCollection(menus.values());
+    }
+
+    /**
+     * Opens a menu for a player.
+     *
+     * @param id     Id of the menu
+     * @param player Player to open the menu for
+     * @return The opened {@link ChestInventory}, or null if there is no such menu
+     */
+    @Nullable
+    public ChestInventory open(String id, Player player) {
+        MenuTemplate menu = menus.get(id);
+        return menu == null ? null : menu.open(player);
+    }
+
+    /**
+     * Registers a click action that menu items can reference by name.
+     *
+     * @param name    Name of the action
+     * @param handler Handler run when an item with the action is clicked
+     */
+    public void registerAction(String name, Consumer<InventoryClickEvent> handler) {
+        actions.put(name, handler);
+    }
+
+    /**
+     * Gets a registered click action.
+     *
+     * @param name Name of the action
+     * @return The handler, or null if no action is registered under the name
+     */
+    @Nullable
+    public Consumer<InventoryClickEvent> getAction(String name) {
+        return actions.get(name);
+    }
+
+    /**
+     * Recompiles every menu file and removes menus whose file is gone.
+     */
+    public void reloadAll() {
+        try (Stream<Path> files = Files.list(folder)) {
+            Collection<String> found = files.filter(MenuRegistry::isMenuFile).map(this::compile).toList();
+            menus.keySet().retainAll(found);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not list menu folder " + folder, e);
+        }
+    }
+
+    /**
+     * Compiles a menu file and swaps it into the registry.
+     *
+     * @param file The menu file
+     * @return The menu id, also if compiling failed and the previous template was kept
+     */
+    private String compile(Path file) {
+        String id = idOf(file);
+
+        try {
+            YamlConfiguration config = new YamlConfiguration();
+            config.load(file.toFile());
+            menus.put(id, MenuTemplate.compile(id, config));
+        } catch (IOException | InvalidConfigurationException | IllegalArgumentException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not compile menu " + file.getFileName() + ": " + e.getMessage());
+        }
+
+        return id;
+    }
+
+    /**
+     * Starts a daemon thread recompiling menu files as they change.
+     */
+    private void startWatching() {
+        try {
+            watchService = folder.getFileSystem().newWatchService();
+            folder.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not watch menu folder, menus will not reload automatically", e);
+            return;
+        }
+
+        Thread thread = new Thread(this::watch, "IF-MenuWatcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Waits for changes in the menu folder and recompiles only the changed files.
+     */
+    private void watch() {
+        WatchService service = watchService;
+
+        try {
+            while (true) {
+                WatchKey key = service.take();
+
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (!(event.context() instanceof Path name) || !isMenuFile(name)) continue;
+
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) menus.remove(idOf(name));
+                    else compile(folder.resolve(name));
+                }
+
+                if (!key.reset()) return;
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Registry shut down
+        }
+    }
+
+    /**
+     * Checks whether a path names a menu file.
+     *
+     * @param path The path to check
+     * @return True if the file is a YAML file
+     */
+    private static boolean isMenuFile(Path path) {
+        String name = path.getFileName().toString();
+        return name.endsWith(".yml") || name.endsWith(".yaml");
+    }
+
+    /**
+     * Gets the menu id of a file.
+     *
+     * @param path The menu file
+     * @return The file name without extension
+     */
+    private static String idOf(Path path) {
+        String name = path.getFileName().toString();
+        return name.substring(0, name.lastIndexOf('.'));
+    }
+}
@@ -0,0 +1,203 @@
+package de.ztiger.IF.menu;
+
+import de.ztiger.IF.data.Pattern;
+import de.ztiger.IF.inventory.ChestInventory;
+import de.ztiger.IF.inventory.InventoryItem;
+import de.ztiger.IF.inventory.InventoryPool;
+import de.ztiger.IF.inventory.Pane;
+import de.ztiger.IF.util.ItemBuilder;
+import de.ztiger.IF.util.ItemTemplate;
+import lombok.Getter;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.InventoryClickEvent;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * An immutable menu compiled from a menu definition file.
+ * Items are built once into {@link ItemTemplate}s, and the {@link InventoryItem}s showing them are shared by every
+ * inventory created from the template.
+ */
+public final class MenuTemplate {
+
+    /**
+     * Id of the menu, the file name without extension.
+     */
+    @Getter
+    private final String id;
+
+    /**
+     * Number of rows of the menu.
+     */
+    @Getter
+    private final int rows;
+
+    /**
+     * Title of the menu.
+     */
+    @Getter
+    private final Component title;
+
+    /**
+     * Layout of the menu.
+     */
+    @Getter
+    private final Pattern pattern;
+
+    /**
+     * Items with their action handlers by pattern character, shared by every created inventory.
+     */
+    private final Map<Character, InventoryItem> items;
+
+    private MenuTemplate(String id, int rows, Component title, Pattern pattern, Map<Character, ItemTemplate> items, Map<Character, String> actions) {
+        this.id = id;
+        this.rows = rows;
+        this.title = title;
+        this.pattern = pattern;
+
+        Map<Character, InventoryItem> compiled = new HashMap<>();
+        items.forEach((key, item) -> compiled.put(key, new InventoryItem(item, actionHandler(actions.get(key)))));
+        this.items = Map.copyOf(compiled);
+    }
+
+    /**
+     * Compiles a menu definition.
+     *
+     * @param id     Id of the menu
+     * @param config The parsed definition
+     * @return The compiled {@link MenuTemplate}
+     * @throws IllegalArgumentException If the definition is invalid
+     */
+    static MenuTemplate compile(String id, ConfigurationSection config) {
+        MiniMessage miniMessage = MiniMessage.miniMessage();
+
+        List<String> rowsList = config.getStringList("pattern");
+        if (rowsList.isEmpty()) throw new IllegalArgumentException("Menu '" + id + "' has no pattern");
+        Pattern pattern = Pattern.of(rowsList.toArray(String[]::new));
+
+        int rows = config.getInt("rows", pattern.getRows());
+        if (rows < 1 || rows > Pattern.MAX_ROWS || rows < pattern.getRows()) {
+            throw new IllegalArgumentException("Menu '" + id + "' has an invalid row count: " + rows);
+        }
+
+        Component title = miniMessage.deserialize(config.getString("title", id));
+
+        Map<Character, ItemTemplate> items = new HashMap<>();
+        Map<Character, String> actions = new HashMap<>();
+        ConfigurationSection itemsSection = config.getConfigurationSection("items");
+
+        if (itemsSection != null) {
+            for (String key : itemsSection.getKeys(false)) {
+                if (key.length() != 1) throw new IllegalArgumentException("Item key '" + key + "' in menu '" + id + "' must be a single character");
+
+                ConfigurationSection itemSection = itemsSection.getConfigurationSection(key);
+                if (itemSection == null) continue;
+
+                items.put(key.charAt(0), compileItem(id, key, itemSection, miniMessage));
+
+                String action = itemSection.getString("action");
+                if (action != null) actions.put(key.charAt(0), action);
+            }
+        }
+
+        return new MenuTemplate(id, rows, title, pattern, items, actions);
+    }
+
+    /**
+     * Compiles a single item definition.
+     *
+     * @param id          Id of the menu
+     * @param key         Pattern character of the item
+     * @param section     The item definition
+     * @param miniMessage Parser for the texts
+     * @return The built {@link ItemTemplate}
+     */
+    private static ItemTemplate compileItem(String id, String key, ConfigurationSection section, MiniMessage miniMessage) {
+        Material material = Material.matchMaterial(section.getString("material", "STONE"));
+        if (material == null || !material.isItem()) {
+            throw new IllegalArgumentException("Item '" + key + "' in menu '" + id + "' has an invalid material: " + section.getString("material"));
+        }
+
+        ItemBuilder builder = new ItemBuilder(material);
+
+        String texture = section.getString("texture");
+        if (texture != null) builder.setCustomTexture(texture);
+
+        String name = section.getString("name");
+        if (name != null) builder.setName(miniMessage.deserialize(name));
+
+        List<String> loreLines = section.getStringList("lore");
+        if (!loreLines.isEmpty()) {
+            List<Component> lore = new ArrayList<>(loreLines.size());
+            for (String line : loreLines) lore.add(miniMessage.deserialize(line));
+            builder.setLore(lore);
+        }
+
+        if (section.getBoolean("glow")) builder.addGlow();
+
+        return builder.buildTemplate();
+    }
+
+    /**
+     * Creates a new chest inventory from the template. Every click in it is cancelled.
+     *
+     * @return The created {@link ChestInventory}
+     */
+    public ChestInventory create() {
+        ChestInventory chestInventory = new ChestInventory(rows, title);
+        chestInventory.setName(id);
+        // Config-defined menus have no code that could protect decoration items, so nothing can be taken
+        chestInventory.setOnGlobalClick(event -> event.setCancelled(true));
+
+        Pane pane = new Pane();
+        for (int i = 0; i < pattern.getKeyCount(); i++) {
+            char key = pattern.getKey(i);
+            InventoryItem item = items.get(key);
+            if (item != null) pane.fill(pattern.getKeyMask(i), item);
+        }
+
+        chestInventory.addPane(pane);
+        return chestInventory;
+    }
+
+    /**
+     * Opens the menu for the player, reusing an idle inventory of the template from the {@link InventoryPool} if there is one.
+     *
+     * @param player Player to open the menu for
+     * @return The opened {@link ChestInventory}
+     */
+    public ChestInventory open(Player player) {
+        InventoryPool pool = InventoryPool.getInstance();
+        ChestInventory chestInventory = pool == null ? create() : pool.acquire(this, this::create);
+        chestInventory.open(player);
+        return chestInventory;
+    }
+
+    /**
+     * Creates a click handler looking up the named action when clicked, so actions can be registered after loading.
+     *
+     * @param action Name of the action, or null for none
+     * @return The click handler, or null
+     */
+    @Nullable
+    private static Consumer<InventoryClickEvent> actionHandler(@Nullable String action) {
+        if (action == null) return null;
+
+        return event -> {
+            event.setCancelled(true);
+
+            MenuRegistry registry = MenuRegistry.getInstance();
+            Consumer<InventoryClickEvent> handler = registry == null ? null : registry.getAction(action);
+            if (handler != null) handler.accept(event);
+        };
+    }
+}
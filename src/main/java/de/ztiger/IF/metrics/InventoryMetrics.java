@@ -0,0 +1,113 @@
+package de.ztiger.IF.metrics;
+
+import de.ztiger.IF.IFPlugin;
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional instrumentation of chest inventory hot paths, recorded per inventory name.
+ * While disabled, instrumented code only pays for a single volatile read.
+ */
+public final class InventoryMetrics {
+
+    /**
+     * Default handler budget of 2 milliseconds.
+     */
+    public static final long DEFAULT_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+    /**
+     * Whether metrics are recorded.
+     */
+    @Getter
+    @Setter
+    private static volatile boolean enabled;
+
+    /**
+     * Handlers taking longer than this many nanoseconds are reported as slow.
+     */
+    @Getter
+    @Setter
+    private static volatile long budgetNanos = DEFAULT_BUDGET_NANOS;
+
+    /**
+     * Statistics by inventory name.
+     */
+    private static final Map<String, InventoryStats> stats = new ConcurrentHashMap<>();
+
+    private InventoryMetrics() {
+    }
+
+    /**
+     * Gets the statistics of the inventories with the given name.
+     *
+     * @param name The inventory name
+     * @return The {@link InventoryStats}, or null if nothing was recorded for the name
+     */
+    @Nullable
+    public static InventoryStats getStats(String name) {
+        return stats.get(name);
+    }
+
+    /**
+     * Gets the statistics of all named inventories.
+     *
+     * @return Unmodifiable view of all {@link InventoryStats}
+     */
+    public static Collection<InventoryStats> getAllStats() {
+        return Collections.unmodifiableCollection(stats.values());
+    }
+
+    /**
+     * Removes all recorded statistics.
+     */
+    public static void reset() {
+        stats.clear();
+    }
+
+    /**
+     * Records a click in an inventory.
+     *
+     * @param name The inventory name
+     */
+    public static void recordClick(String name) {
+        stats.computeIfAbsent(name, InventoryStats::new).recordClick();
+    }
+
+    /**
+     * Records a handler call and reports it if it exceeded the budget.
+     *
+     * @param name    The inventory name
+     * @param handler Kind of handler (click, global-click, drag, close)
+     * @param slot    The slot involved, or -1 if none
+     * @param pane    Description of the pane owning the slot, or null
+     * @param nanos   Time spent in the handler
+     */
+    public static void recordHandler(String name, String handler, int slot, @Nullable String pane, long nanos) {
+        InventoryStats inventoryStats = stats.computeIfAbsent(name, InventoryStats::new);
+        inventoryStats.recordHandler(nanos);
+
+        if (nanos > budgetNanos) {
+            inventoryStats.recordSlowHandler(new InventoryStats.SlowHandler(handler, slot, pane, nanos));
+            IFPlugin.getInstance().getLogger().warning(String.format("Slow %s handler in '%s' (slot %d, pane %s): %.2f ms",
+                    handler, name, slot, pane == null ? "-" : pane, nanos / 1_000_000.0));
+        }
+    }
+
+    /**
+     * Records a flush of the render buffer.
+     *
+     * @param name  The inventory name
+     * @param slots Number of slots written
+     * @param nanos Time spent writing the slots
+     */
+    public static void recordRender(String name, int slots, long nanos) {
+        stats.computeIfAbsent(name, InventoryStats::new).recordRender(slots, nanos);
+    }
+}
@@ -0,0 +1,134 @@
+package de.ztiger.IF.metrics;
+
+import lombok.Getter;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hot-path statistics of all chest inventories sharing a name.
+ */
+public class InventoryStats {
+
+    /**
+     * Name of the inventories these statistics belong to.
+     */
+    @Getter
+    private final String name;
+
+    /**
+     * Latency of all handlers (item clicks, global clicks, drags and closes).
+     */
+    @Getter
+    private final LatencyHistogram handlerLatency = new LatencyHistogram();
+
+    private final LongAdder clicks = new LongAdder();
+    private final LongAdder slowHandlers = new LongAdder();
+    private final LongAdder setItems = new LongAdder();
+    private final LongAdder renders = new LongAdder();
+    private final LongAdder renderNanos = new LongAdder();
+
+    /**
+     * The most recent handler that exceeded the budget.
+     */
+    @Getter
+    @Nullable
+    private volatile SlowHandler lastSlowHandler;
+
+    /**
+     * Creates empty statistics.
+     *
+     * @param name Name of the inventories
+     */
+    InventoryStats(String name) {
+        this.name = name;
+    }
+
+    void recordClick() {
+        clicks.increment();
+    }
+
+    void recordHandler(long nanos) {
+        handlerLatency.record(nanos);
+    }
+
+    void recordSlowHandler(SlowHandler slowHandler) {
+        slowHandlers.increment();
+        lastSlowHandler = slowHandler;
+    }
+
+    void recordRender(int slots, long nanos) {
+        renders.increment();
+        setItems.add(slots);
+        renderNanos.add(nanos);
+    }
+
+    /**
+     * Gets the number of clicks in the inventories.
+     *
+     * @return The click count
+     */
+    public long getClicks() {
+        return clicks.sum();
+    }
+
+    /**
+     * Gets the number of handlers that exceeded the budget.
+     *
+     * @return The slow handler count
+     */
+    public long getSlowHandlers() {
+        return slowHandlers.sum();
+    }
+
+    /**
+     * Gets the number of slots written to the underlying inventories.
+     *
+     * @return The setItem count
+     */
+    public long getSetItems() {
+        return setItems.sum();
+    }
+
+    /**
+     * Gets the number of render buffer flushes that wrote at least one slot.
+     *
+     * @return The render count
+     */
+    public long getRenders() {
+        return renders.sum();
+    }
+
+    /**
+     * Gets the total time spent writing slots.
+     *
+     * @return The render time in nanoseconds
+     */
+    public long getRenderNanos() {
+        return renderNanos.sum();
+    }
+
+    /**
+     * Clears all statistics.
+     */
+    public void reset() {
+        handlerLatency.reset();
+        clicks.reset();
+        slowHandlers.reset();
+        setItems.reset();
+        renders.reset();
+        renderNanos.reset();
+        lastSlowHandler = null;
+    }
+
+    /**
+     * A handler call that exceeded the budget.
+     *
+     * @param handler Kind of handler (click, global-click, drag, close)
+     * @param slot    The slot involved, or -1 if none
+     * @param pane    Description of the pane owning the slot, or null
+     * @param nanos   Time spent in the handler
+     */
+    public record SlowHandler(String handler, int slot, @Nullable String pane, long nanos) {
+    }
+}
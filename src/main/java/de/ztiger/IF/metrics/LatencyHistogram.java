@@ -0,0 +1,85 @@
+package de.ztiger.IF.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Lock-free latency histogram with power-of-two microsecond buckets.
+ * Bucket {@code n} counts samples below {@code 2^n} microseconds, the last bucket counts everything above.
+ */
+public class LatencyHistogram {
+
+    /**
+     * Number of buckets, the last one covering everything from about one second upwards.
+     */
+    public static final int BUCKETS = 21;
+
+    /**
+     * Sample counts per bucket.
+     */
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Largest recorded sample in nanoseconds.
+     */
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records a sample.
+     *
+     * @param nanos The latency in nanoseconds
+     */
+    public void record(long nanos) {
+        long micros = nanos / 1000;
+        int bucket = micros == 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        buckets.incrementAndGet(bucket);
+        max.accumulate(nanos);
+    }
+
+    /**
+     * Gets the number of recorded samples.
+     *
+     * @return The sample count
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) count += buckets.get(i);
+        return count;
+    }
+
+    /**
+     * Gets the largest recorded sample.
+     *
+     * @return The maximum latency in nanoseconds
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Gets an upper bound of the given percentile.
+     *
+     * @param percentile The percentile between 0 and 1
+     * @return The upper bound of the bucket containing the percentile, in nanoseconds
+     */
+    public long getPercentile(double percentile) {
+        long count = getCount();
+        if (count == 0) return 0;
+
+        long target = (long) Math.ceil(count * percentile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS - 1; i++) {
+            seen += buckets.get(i);
+            if (seen >= target) return Math.min((1L << i) * 1000, getMax());
+        }
+        return getMax();
+    }
+
+    /**
+     * Clears all samples.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) buckets.set(i, 0);
+        max.reset();
+    }
+}
@@ -0,0 +1,70 @@
+package de.ztiger.IF.state;
+
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * Immutable snapshot of a player's state in a chest inventory.
+ */
+public final class GuiState {
+
+    /**
+     * Current page of every pane by pane index, or scroll offset, -1 for other panes.
+     */
+    private final int[] pages;
+
+    /**
+     * Bitset of hidden panes by pane index.
+     */
+    @Getter
+    private final long hiddenPanes;
+
+    /**
+     * Custom values stored by the inventory.
+     */
+    @Getter
+    private final Map<String, String> values;
+
+    /**
+     * Creates a state snapshot.
+     *
+     * @param pages       Current page of every pane by pane index, or scroll offset, -1 for other panes
+     * @param hiddenPanes Bitset of hidden panes by pane index
+     * @param values      Custom values stored by the inventory
+     */
+    public GuiState(int[] pages, long hiddenPanes, Map<String, String> values) {
+        this.pages = pages.clone();
+        this.hiddenPanes = hiddenPanes;
+        this.values = Map.copyOf(values);
+    }
+
+    /**
+     * Gets the number of panes captured in the state.
+     *
+     * @return The number of panes
+     */
+    public int getPaneCount() {
+        return pages.length;
+    }
+
+    /**
+     * Gets the page of a pane.
+     *
+     * @param paneIndex Index of the pane
+     * @return The page, or -1 if the pane is neither paginated nor scrolling, or not captured
+     */
+    public int getPage(int paneIndex) {
+        return paneIndex >= 0 && paneIndex < pages.length ? pages[paneIndex] : -1;
+    }
+
+    /**
+     * Checks whether a pane was hidden.
+     *
+     * @param paneIndex Index of the pane
+     * @return True if the pane was hidden
+     */
+    public boolean isHidden(int paneIndex) {
+        return paneIndex >= 0 && paneIndex < 64 && (hiddenPanes & (1L << paneIndex)) != 0;
+    }
+}
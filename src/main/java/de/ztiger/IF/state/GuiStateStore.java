@@ -0,0 +1,413 @@
+package de.ztiger.IF.state;
+
+import lombok.Getter;
+import org.bukkit.plugin.Plugin;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+
+/**
+ * Persists per-player {@link GuiState}s in an append-only binary log under the plugin folder.
+ * <p>
+ * All states are held in memory, so lookups never touch the disk. The log is read asynchronously on
+ * startup and compacted when it holds mostly outdated records. Changes are queued and appended in
+ * batches by an async task, so saving never blocks the tick.
+ */
+public class GuiStateStore {
+
+    /**
+     * File header identifying the log format.
+     */
+    private static final int MAGIC = 0x49465331; // "IFS1"
+
+    /**
+     * Record type storing a state.
+     */
+    private static final byte PUT = 0;
+
+    /**
+     * Record type removing a state.
+     */
+    private static final byte REMOVE = 1;
+
+    /**
+     * Largest accepted record payload, in bytes. Longer lengths can only come from a corrupt log.
+     */
+    private static final int MAX_RECORD_LENGTH = 1 << 20;
+
+    /**
+     * Largest count stored in an unsigned short field of a record.
+     */
+    private static final int MAX_COUNT = 0xFFFF;
+
+    /**
+     * Interval of the batch writer, in ticks.
+     */
+    public static final long FLUSH_INTERVAL = 40L;
+
+    /**
+     * Singleton instance of the GuiStateStore.
+     */
+    @Getter
+    private static volatile GuiStateStore instance;
+
+    /**
+     * The log file.
+     */
+    @Getter
+    private final Path file;
+
+    /**
+     * Plugin owning the store, used for logging.
+     */
+    private final Plugin plugin;
+
+    /**
+     * States by player and state key.
+     */
+    private final Map<Key, GuiState> states = new ConcurrentHashMap<>();
+
+    /**
+     * Encoded records waiting to be appended.
+     */
+    private final Queue<byte[]> pending = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Keys removed while the log was being read, so the stored states read for them are not brought back.
+     */
+    private final Set<Key> removedWhileLoading = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Whether the log has been read. States are not restored before.
+     */
+    @Getter
+    private volatile boolean loaded;
+
+    /**
+     * Whether the log starts with a valid header, so records can be appended to it.
+     */
+    private volatile boolean writable;
+
+    private GuiStateStore(Plugin plugin, Path file) {
+        this.plugin = plugin;
+        this.file = file;
+    }
+
+    /**
+     * Initializes the GuiStateStore, reads the log asynchronously and starts the batch writer.
+     *
+     * @param plugin The {@link Plugin} whose data folder holds the log
+     */
+    public static void init(Plugin plugin) {
+        GuiStateStore store = new GuiStateStore(plugin, plugin.getDataFolder().toPath().resolve("state").resolve("gui-state.log"));
+        instance = store;
+
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, store::load);
+        plugin.getServer().getScheduler().runTaskTimerAsynchronously(plugin, store::flush, FLUSH_INTERVAL, FLUSH_INTERVAL);
+    }
+
+    /**
+     * Gets the stored state of a player in an inventory.
+     *
+     * @param playerId The {@link UUID} of the player
+     * @param stateKey The state key of the inventory
+     * @return The {@link GuiState}, or null if none is stored or the log is not loaded yet
+     */
+    @Nullable
+    public GuiState get(UUID playerId, String stateKey) {
+        return states.get(new Key(playerId, stateKey));
+    }
+
+    /**
+     * Stores the state of a player in an inventory. The state is written to disk with the next batch.
+     * A state that cannot be encoded, for example because of an over-long key or value, is logged and not stored.
+     *
+     * @param playerId The {@link UUID} of the player
+     * @param stateKey The state key of the inventory
+     * @param state    The {@link GuiState} to store
+     */
+    public void save(UUID playerId, String stateKey, GuiState state) {
+        Key key = new Key(playerId, stateKey);
+
+        byte[] record;
+        try {
+            record = encode(PUT, key, state);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Not storing GUI state '" + stateKey + "' of " + playerId + ": " + e.getMessage());
+            return;
+        }
+
+        states.put(key, state);
+        pending.add(record);
+    }
+
+    /**
+     * Removes the stored state of a player in an inventory.
+     *
+     * @param playerId The {@link UUID} of the player
+     * @param stateKey The state key of the inventory
+     */
+    public void remove(UUID playerId, String stateKey) {
+        Key key = new Key(playerId, stateKey);
+        if (!loaded) removedWhileLoading.add(key);
+        if (states.remove(key) == null && loaded) return;
+
+        try {
+            pending.add(encode(REMOVE, key, null));
+        } catch (IOException ignored) {
+            // A key that cannot be encoded was never stored
+        }
+    }
+
+    /**
+     * Appends all queued records to the log. Called by the batch writer and on shutdown.
+     * If the log could not be recovered after a read error, the records are dropped and states only live in memory.
+     */
+    public synchronized void flush() {
+        if (pending.isEmpty() || !loaded) return;
+
+        if (!writable) {
+            pending.clear();
+            return;
+        }
+
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+            byte[] record;
+            while ((record = pending.poll()) != null) out.write(record);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not write GUI states to " + file, e);
+        }
+    }
+
+    /**
+     * Reads the log into memory and compacts it if most of its records are outdated. If the log cannot be read,
+     * it is moved aside and rewritten from the states in memory, so later appends never go to a file without header.
+     */
+    private synchronized void load() {
+        try {
+            Files.createDirectories(file.getParent());
+
+            LogScan scan = new LogScan(0, 0);
+            long size = Files.exists(file) ? Files.size(file) : 0;
+            Map<Key, GuiState> stored = new HashMap<>();
+
+            if (size >= Integer.BYTES) {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                    if (in.readInt() == MAGIC) {
+                        scan = readRecords(in, stored, size);
+                    } else {
+                        Path corrupt = file.resolveSibling(file.getFileName() + ".corrupt");
+                        plugin.getLogger().warning("Unknown GUI state log format, moving it to " + corrupt);
+                        in.close();
+                        Files.move(file, corrupt, StandardCopyOption.REPLACE_EXISTING);
+                        size = 0;
+                    }
+                }
+            }
+
+            // States saved while loading are newer than the stored ones, states removed while loading stay removed
+            stored.forEach((key, state) -> {
+                if (removedWhileLoading.contains(key)) return;
+                states.putIfAbsent(key, state);
+                if (removedWhileLoading.contains(key)) states.remove(key, state);
+            });
+
+            // A torn or corrupt tail would swallow every record appended after it
+            if (scan.validLength() < size) {
+                plugin.getLogger().warning("Discarding " + (size - scan.validLength()) + " unreadable bytes at the end of " + file);
+            }
+
+            if (scan.records() == 0 || scan.validLength() < size || scan.records() > states.size() * 2) compact();
+            writable = true;
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not read GUI states from " + file, e);
+            recover();
+        }
+
+        loaded = true;
+        removedWhileLoading.clear();
+    }
+
+    /**
+     * Moves an unreadable log aside and starts a new one holding the states in memory.
+     * If that fails too, states are kept in memory only until the server stops.
+     */
+    private void recover() {
+        try {
+            if (Files.exists(file)) Files.move(file, file.resolveSibling(file.getFileName() + ".corrupt"), StandardCopyOption.REPLACE_EXISTING);
+            compact();
+            writable = true;
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Could not recreate " + file + ", GUI states are not persisted", e);
+        }
+    }
+
+    /**
+     * Reads records until the end of the log or the first unreadable record. Lengths that are not positive,
+     * exceed {@link #MAX_RECORD_LENGTH} or run past the end of the file end the scan.
+     *
+     * @param in     The log positioned after the header
+     * @param stored Map receiving the stored states
+     * @param size   Size of the log file in bytes
+     * @return The number of records read and the length of the readable part of the log
+     * @throws IOException If the log cannot be read
+     */
+    private LogScan readRecords(DataInputStream in, Map<Key, GuiState> stored, long size) throws IOException {
+        int records = 0;
+        long offset = Integer.BYTES;
+
+        while (size - offset >= Integer.BYTES) {
+            int length = in.readInt();
+            if (length <= 0 || length > MAX_RECORD_LENGTH || length > size - offset - Integer.BYTES) break;
+
+            byte[] payload = new byte[length];
+            if (in.readNBytes(payload, 0, length) < length) break;
+
+            try {
+                readRecord(payload, stored);
+            } catch (IOException e) {
+                break;
+            }
+
+            offset += Integer.BYTES + length;
+            records++;
+        }
+
+        return new LogScan(records, offset);
+    }
+
+    /**
+     * Decodes a single record payload into the stored states.
+     *
+     * @param payload The record without its length prefix
+     * @param stored  Map receiving the stored states
+     * @throws IOException If the payload is malformed
+     */
+    private static void readRecord(byte[] payload, Map<Key, GuiState> stored) throws IOException {
+        DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = record.readByte();
+        Key key = new Key(new UUID(record.readLong(), record.readLong()), record.readUTF());
+
+        if (type == REMOVE) {
+            stored.remove(key);
+        } else if (type == PUT) {
+            int[] pages = new int[record.readUnsignedShort()];
+            for (int i = 0; i < pages.length; i++) pages[i] = record.readInt();
+            long hiddenPanes = record.readLong();
+
+            int valueCount = record.readUnsignedShort();
+            Map<String, String> values = new HashMap<>(valueCount);
+            for (int i = 0; i < valueCount; i++) values.put(record.readUTF(), record.readUTF());
+
+            stored.put(key, new GuiState(pages, hiddenPanes, values));
+        } else {
+            throw new IOException("Unknown record type " + type);
+        }
+    }
+
+    /**
+     * Rewrites the log with one record per stored state.
+     *
+     * @throws IOException If the log cannot be written
+     */
+    private void compact() throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            for (Map.Entry<Key, GuiState> entry : states.entrySet()) {
+                out.write(encode(PUT, entry.getKey(), entry.getValue()));
+            }
+        }
+
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Encodes a record, prefixed with its length.
+     *
+     * @param type  The record type
+     * @param key   The key of the state
+     * @param state The state, null for removals
+     * @return The encoded record
+     * @throws IOException If a string is too long to encode or a count does not fit into its field
+     */
+    private static byte[] encode(byte type, Key key, @Nullable GuiState state) throws IOException {
+        if (state != null && (state.getPaneCount() > MAX_COUNT || state.getValues().size() > MAX_COUNT)) {
+            throw new IOException("State has " + state.getPaneCount() + " panes and " + state.getValues().size()
+                    + " values, at most " + MAX_COUNT + " of each are supported");
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0);
+        out.writeByte(type);
+        out.writeLong(key.playerId().getMostSignificantBits());
+        out.writeLong(key.playerId().getLeastSignificantBits());
+        out.writeUTF(key.stateKey());
+
+        if (state != null) {
+            out.writeShort(state.getPaneCount());
+            for (int i = 0; i < state.getPaneCount(); i++) out.writeInt(state.getPage(i));
+            out.writeLong(state.getHiddenPanes());
+
+            List<Map.Entry<String, String>> values = new ArrayList<>(state.getValues().entrySet());
+            out.writeShort(values.size());
+            for (Map.Entry<String, String> value : values) {
+                out.writeUTF(value.getKey());
+                out.writeUTF(value.getValue());
+            }
+        }
+
+        byte[] record = bytes.toByteArray();
+        int length = record.length - Integer.BYTES;
+        if (length > MAX_RECORD_LENGTH) {
+            throw new IOException("Encoded state is " + length + " bytes, at most " + MAX_RECORD_LENGTH + " are supported");
+        }
+
+        record[0] = (byte) (length >>> 24);
+        record[1] = (byte) (length >>> 16);
+        record[2] = (byte) (length >>> 8);
+        record[3] = (byte) length;
+        return record;
+    }
+
+    /**
+     * Outcome of reading the log.
+     *
+     * @param records     Number of readable records
+     * @param validLength Length of the log up to the end of the last readable record, in bytes
+     */
+    private record LogScan(int records, long validLength) {
+    }
+
+    /**
+     * Key of a stored state.
+     *
+     * @param playerId The {@link UUID} of the player
+     * @param stateKey The state key of the inventory
+     */
+    private record Key(UUID playerId, String stateKey) {
+    }
+}
@@ -0,0 +1,147 @@
+package de.ztiger.IF.util;
+
+import lombok.Getter;
+import lombok.Setter;
+import net.kyori.adventure.text.Component;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, thread-safe cache of fully built custom texture heads.
+ * Heads are keyed by texture, name and lore, and callers always receive a clone.
+ */
+public final class HeadCache {
+
+    /**
+     * Default maximum number of cached heads.
+     */
+    public static final int DEFAULT_MAX_SIZE = 512;
+
+    /**
+     * Built heads by key.
+     */
+    private static final Map<Key, ItemStack> heads = new ConcurrentHashMap<>();
+
+    /**
+     * Cached keys in insertion order, used for eviction.
+     */
+    private static final Queue<Key> insertionOrder = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Number of lookups served from the cache.
+     */
+    private static final LongAdder hits = new LongAdder();
+
+    /**
+     * Number of lookups that had to build a head.
+     */
+    private static final LongAdder misses = new LongAdder();
+
+    /**
+     * Maximum number of cached heads. The oldest heads are evicted first.
+     */
+    @Getter
+    @Setter
+    private static volatile int maxSize = DEFAULT_MAX_SIZE;
+
+    private HeadCache() {
+    }
+
+    /**
+     * Gets a player head with the given texture and display properties, building it on a miss.
+     *
+     * @param texture The texture hash of the head
+     * @param name    The display name, or null for none
+     * @param lore    The lore lines, or null for none
+     * @return A clone of the cached {@link ItemStack}
+     */
+    public static ItemStack get(String texture, @Nullable Component name, @Nullable List<Component> lore) {
+        Key key = new Key(texture, name, lore == null ? List.of() : List.copyOf(lore));
+
+        ItemStack head = heads.get(key);
+        if (head != null) {
+            hits.increment();
+            return head.clone();
+        }
+
+        misses.increment();
+
+        ItemBuilder builder = new ItemBuilder(Material.PLAYER_HEAD).setCustomTexture(texture);
+        if (name != null) builder.setName(name);
+        if (!key.lore().isEmpty()) builder.setLore(key.lore());
+        head = builder.build();
+
+        if (heads.putIfAbsent(key, head) == null) {
+            insertionOrder.add(key);
+            evict();
+        }
+
+        return head.clone();
+    }
+
+    /**
+     * Evicts the oldest heads until the cache fits its maximum size.
+     */
+    private static void evict() {
+        while (heads.size() > maxSize) {
+            Key eldest = insertionOrder.poll();
+            if (eldest == null) return;
+            heads.remove(eldest);
+        }
+    }
+
+    /**
+     * Gets the number of lookups served from the cache.
+     *
+     * @return The hit count
+     */
+    public static long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of lookups that had to build a head.
+     *
+     * @return The miss count
+     */
+    public static long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the number of cached heads.
+     *
+     * @return The cache size
+     */
+    public static int getSize() {
+        return heads.size();
+    }
+
+    /**
+     * Removes all cached heads and resets the counters.
+     */
+    public static void clear() {
+        heads.clear();
+        insertionOrder.clear();
+        hits.reset();
+        misses.reset();
+    }
+
+    /**
+     * Cache key of a head.
+     *
+     * @param texture The texture hash
+     * @param name    The display name, or null
+     * @param lore    The lore lines
+     */
+    private record Key(String texture, @Nullable Component name, List<Component> lore) {
+    }
+}
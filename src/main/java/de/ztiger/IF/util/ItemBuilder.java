@@ -88,13 +88,15 @@ public class ItemBuilder {
 
     /**
      * Sets a custom texture for a player head item.
+     * The profile UUID is derived from the texture, so the client can reuse an already downloaded skin.
+     * For heads built repeatedly, prefer {@link HeadCache#get(String, Component, List)}.
      *
      * @param texture The texture string to apply to the player head.
      * @return The current {@link ItemBuilder} instance for method chaining.
      */
     public ItemBuilder setCustomTexture(String texture) {
         SkullMeta meta = (SkullMeta) this.meta;
-        PlayerProfile profile = Bukkit.createProfile(UUID.randomUUID());
+        PlayerProfile profile = Bukkit.createProfile(UUID.nameUUIDFromBytes(texture.getBytes(StandardCharsets.UTF_8)));
         String encodedTexture = Base64.getEncoder().encodeToString(("{\"textures\":{\"SKIN\":{\"url\":\"http://textures.minecraft.net/texture/" + texture + "\"}}}").getBytes(StandardCharsets.UTF_8));
         profile.setProperty(new ProfileProperty("textures", encodedTexture));
         meta.setPlayerProfile(profile);
@@ -125,4 +127,14 @@ public class ItemBuilder {
         item.unsetData(DataComponentTypes.ATTRIBUTE_MODIFIERS);
         return item;
     }
+
+    /**
+     * Builds the item into a frozen {@link ItemTemplate} that can be shared between inventories and players.
+     * The builder must not be used after this call.
+     *
+     * @return The constructed {@link ItemTemplate}.
+     */
+    public ItemTemplate buildTemplate() {
+        return new ItemTemplate(build());
+    }
 }
@@ -0,0 +1,107 @@
+package de.ztiger.IF.util;
+
+import io.papermc.paper.datacomponent.DataComponentTypes;
+import io.papermc.paper.datacomponent.item.ItemLore;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.ComponentLike;
+import net.kyori.adventure.text.TextReplacementConfig;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * A frozen, shareable item built once by an {@link ItemBuilder}. The template is immutable,
+ * its stack is only ever handed out as a copy.
+ * Variants that only change the name or lore are derived from the template
+ * by editing data components on a copy, without rebuilding any item meta.
+ */
+public final class ItemTemplate {
+
+    /**
+     * The built item backing this template. Never handed out, every accessor returns a copy.
+     */
+    private final ItemStack item;
+
+    /**
+     * Creates a template from a built item.
+     *
+     * @param item The built {@link ItemStack}, which must not be modified afterwards
+     */
+    ItemTemplate(ItemStack item) {
+        this.item = item;
+    }
+
+    /**
+     * Creates a modifiable copy of the template.
+     *
+     * @return A new {@link ItemStack}
+     */
+    public ItemStack create() {
+        return item.clone();
+    }
+
+    /**
+     * Creates a copy of the template with a different name.
+     *
+     * @param name The {@link Component} to use as name
+     * @return A new {@link ItemStack}
+     */
+    public ItemStack withName(Component name) {
+        ItemStack variant = item.clone();
+        variant.setData(DataComponentTypes.CUSTOM_NAME, name);
+        return variant;
+    }
+
+    /**
+     * Creates a copy of the template with different lore.
+     *
+     * @param lore The lore lines to use
+     * @return A new {@link ItemStack}
+     */
+    public ItemStack withLore(List<Component> lore) {
+        ItemStack variant = item.clone();
+        variant.setData(DataComponentTypes.LORE, ItemLore.lore(lore));
+        return variant;
+    }
+
+    /**
+     * Creates a copy of the template with the given transformation applied to its name and every lore line.
+     *
+     * @param transform Transformation applied to each text component
+     * @return A new {@link ItemStack}
+     */
+    public ItemStack transform(UnaryOperator<Component> transform) {
+        ItemStack variant = item.clone();
+
+        Component name = item.getData(DataComponentTypes.CUSTOM_NAME);
+        if (name != null) variant.setData(DataComponentTypes.CUSTOM_NAME, transform.apply(name));
+
+        ItemLore lore = item.getData(DataComponentTypes.LORE);
+        if (lore != null) {
+            List<Component> lines = new ArrayList<>(lore.lines().size());
+            for (Component line : lore.lines()) lines.add(transform.apply(line));
+            variant.setData(DataComponentTypes.LORE, ItemLore.lore(lines));
+        }
+
+        return variant;
+    }
+
+    /**
+     * Creates a copy of the template with the given placeholders replaced in its name and lore.
+     *
+     * @param placeholders Map of literal placeholder text (e.g. {@code %player%}) to its replacement
+     * @return A new {@link ItemStack}
+     */
+    public ItemStack withPlaceholders(Map<String, ? extends ComponentLike> placeholders) {
+        List<TextReplacementConfig> replacements = new ArrayList<>(placeholders.size());
+        placeholders.forEach((placeholder, replacement) -> replacements.add(TextReplacementConfig.builder().matchLiteral(placeholder).replacement(replacement).build()));
+
+        return transform(component -> {
+            for (TextReplacementConfig replacement : replacements) component = component.replaceText(replacement);
+            return component;
+        });
+    }
+}